@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.daemon;
+
+import nl.pieni.maven.dependency_analyzer.database.DependencyDatabase;
+import nl.pieni.maven.dependency_analyzer.database.DependencyDatabaseSearcher;
+import nl.pieni.maven.dependency_analyzer.dot.DotExporter;
+import nl.pieni.maven.dependency_analyzer.neo4j.export.dot.ShapeDotExporterImpl;
+import nl.pieni.maven.dependency_analyzer.neo4j.export.dot.writer.shape.ShapeDotWriter;
+import nl.pieni.maven.dependency_analyzer.neo4j.export.report.DependencyReportImpl;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the dependency database open and serves the report and export requests of the mojo's over a socket
+ * bound to the loopback address. A request is a single line, the response starts with a status line (OK or
+ * ERROR followed by a message) followed by the output. The output is collected before the status line is sent, a
+ * failed request returns the error only. The connection is closed after the response.
+ * <ul>
+ * <li>PING</li>
+ * <li>STOP</li>
+ * <li>REPORT groupId:artifactId</li>
+ * <li>DOT includeVersions [includeFilterPattern,includeFilterPattern]</li>
+ * </ul>
+ */
+public class AnalyzerDaemon {
+    static final String PING = "PING";
+    static final String STOP = "STOP";
+    static final String REPORT = "REPORT";
+    static final String DOT = "DOT";
+    static final String OK = "OK";
+    static final String ERROR = "ERROR";
+    static final String ENCODING = "UTF-8";
+    static final String PATTERN_SEPARATOR = ",";
+
+    private final Log log;
+    private final DependencyDatabase database;
+    private final DependencyDatabaseSearcher searcher;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private ServerSocket serverSocket;
+
+    /**
+     * Default constructor
+     *
+     * @param log      the logger
+     * @param database the opened database
+     * @param searcher searcher of the database
+     */
+    public AnalyzerDaemon(final Log log, final DependencyDatabase database, final DependencyDatabaseSearcher searcher) {
+        this.log = log;
+        this.database = database;
+        this.searcher = searcher;
+    }
+
+    /**
+     * Start accepting requests
+     *
+     * @param port the port, 0 for any free port
+     * @throws IOException unable to listen on the port
+     */
+    public void start(final int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+        log.info("Analyzer daemon listening on port " + serverSocket.getLocalPort());
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "analyzer-daemon");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * The port listened on
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Wait until the daemon is stopped (STOP request or {@link #stop()})
+     *
+     * @throws InterruptedException interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stop accepting requests, the database is not closed
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            log.debug("Error closing the daemon socket: " + e.getMessage());
+        }
+        executor.shutdown();
+        stopped.countDown();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                });
+            } catch (SocketException e) {
+                //Socket closed by stop()
+                break;
+            } catch (IOException e) {
+                log.warn("Error accepting a daemon request: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Handle a single request
+     *
+     * @param socket the connection
+     */
+    private void handle(final Socket socket) {
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), ENCODING));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), ENCODING));
+            String request = in.readLine();
+            //The output is collected first, the status line tells whether it is complete
+            StringWriter output = new StringWriter();
+            boolean stopRequested = false;
+            try {
+                stopRequested = process(request == null ? "" : request.trim(), output);
+                out.write(OK + "\n");
+                out.write(output.toString());
+            } catch (IllegalArgumentException e) {
+                out.write(ERROR + " " + e.getMessage() + "\n");
+            } catch (RuntimeException e) {
+                log.warn("Error processing daemon request " + request, e);
+                out.write(ERROR + " " + e + "\n");
+            } catch (IOException e) {
+                log.warn("Error processing daemon request " + request, e);
+                out.write(ERROR + " " + e + "\n");
+            }
+            out.flush();
+            if (stopRequested) {
+                log.info("Analyzer daemon stop requested");
+                stop();
+            }
+        } catch (IOException e) {
+            log.warn("Error handling daemon request: " + e.getMessage());
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Error closing daemon connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Process the request
+     *
+     * @param request the request line
+     * @param out     the output of the request, without status line
+     * @return true when the daemon is to stop after the response
+     * @throws IOException error creating the output
+     */
+    @SuppressWarnings("unchecked")
+    private boolean process(final String request, final Writer out) throws IOException {
+        String[] arguments = request.split("\\s+");
+        String command = arguments[0];
+        if (PING.equals(command)) {
+            return false;
+        } else if (STOP.equals(command)) {
+            return true;
+        } else if (REPORT.equals(command) && arguments.length == 2) {
+            Dependency dependency = toDependency(arguments[1]);
+            if (searcher.findArtifactNode(dependency) != null) {
+                new DependencyReportImpl(searcher).createReport(dependency, out);
+            }
+        } else if (DOT.equals(command) && arguments.length >= 2) {
+            List<String> patterns = new ArrayList<String>();
+            if (arguments.length > 2) {
+                patterns.addAll(Arrays.asList(arguments[2].split(PATTERN_SEPARATOR)));
+            }
+            DotExporter exporter = new ShapeDotExporterImpl(database, log);
+            exporter.setIncludeVersions(Boolean.parseBoolean(arguments[1]));
+            exporter.setIncludePatters(patterns);
+            //The dot writer closes its writer, the connection is closed after the response
+            exporter.export(new ShapeDotWriter(new FilterWriter(out) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            }, log));
+        } else {
+            throw new IllegalArgumentException("Unsupported request: " + request);
+        }
+        return false;
+    }
+
+    /**
+     * Convert groupId:artifactId to a dependency
+     */
+    private Dependency toDependency(final String ga) {
+        String[] elements = ga.split(":");
+        if (elements.length != 2) {
+            throw new IllegalArgumentException(ga + " is not valid, requires groupId:artifactId");
+        }
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(elements[0]);
+        dependency.setArtifactId(elements[1]);
+        return dependency;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.daemon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Client of the {@link AnalyzerDaemon}, used by the mojo's when a daemon is running.
+ */
+public class DaemonClient {
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private final int port;
+
+    /**
+     * Default constructor
+     *
+     * @param port port of the daemon
+     */
+    public DaemonClient(final int port) {
+        this.port = port;
+    }
+
+    /**
+     * Is the daemon running
+     *
+     * @return true when the daemon answers
+     */
+    public boolean isRunning() {
+        try {
+            request(AnalyzerDaemon.PING, null);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stop the daemon
+     *
+     * @throws IOException daemon not running
+     */
+    public void stop() throws IOException {
+        request(AnalyzerDaemon.STOP, null);
+    }
+
+    /**
+     * Report of an artifact
+     *
+     * @param groupId    the groupId
+     * @param artifactId the artifactId
+     * @param out        receives the report, empty when the artifact is not found
+     * @throws IOException communication error or request failed
+     */
+    public void report(final String groupId, final String artifactId, final Writer out) throws IOException {
+        request(AnalyzerDaemon.REPORT + " " + groupId + ":" + artifactId, out);
+    }
+
+    /**
+     * Dot export of the database
+     *
+     * @param includeVersions       include the versions
+     * @param includeFilterPatterns the artifacts included, all when empty
+     * @param out                   receives the dot output
+     * @throws IOException communication error or request failed
+     */
+    public void exportDot(final boolean includeVersions, final List<String> includeFilterPatterns, final Writer out) throws IOException {
+        StringBuilder request = new StringBuilder(AnalyzerDaemon.DOT).append(' ').append(includeVersions);
+        if (includeFilterPatterns != null && !includeFilterPatterns.isEmpty()) {
+            request.append(' ');
+            for (int i = 0; i < includeFilterPatterns.size(); i++) {
+                if (i > 0) {
+                    request.append(AnalyzerDaemon.PATTERN_SEPARATOR);
+                }
+                request.append(includeFilterPatterns.get(i).trim());
+            }
+        }
+        request(request.toString(), out);
+    }
+
+    /**
+     * Send a request and copy the output of the response
+     *
+     * @param request the request line
+     * @param out     receives the output, null when ignored
+     * @throws IOException communication error or request failed
+     */
+    private void request(final String request, final Writer out) throws IOException {
+        Socket socket = new Socket(InetAddress.getByName("127.0.0.1"), port);
+        try {
+            Writer requestWriter = new OutputStreamWriter(socket.getOutputStream(), AnalyzerDaemon.ENCODING);
+            requestWriter.write(request + "\n");
+            requestWriter.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), AnalyzerDaemon.ENCODING));
+            String status = in.readLine();
+            if (status == null || !status.startsWith(AnalyzerDaemon.OK)) {
+                throw new IOException("Daemon request " + request + " failed: " + status);
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (out != null) {
+                    out.write(line + LINE_SEPARATOR);
+                }
+            }
+            if (out != null) {
+                out.flush();
+            }
+        } finally {
+            socket.close();
+        }
+    }
+}
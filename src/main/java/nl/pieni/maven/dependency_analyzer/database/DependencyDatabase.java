@@ -59,4 +59,31 @@ public interface DependencyDatabase<DB, N>  {
      * Support for transactions, stop the transaction
      */
     void stopTransaction();
+
+    /**
+     * Group the outermost transactions into batches, a batch is committed after the specified number of
+     * transactions or when the batch is open longer than the timeout.
+     *
+     * @param batchSize    number of transactions per batch, 1 or less commits every transaction
+     * @param batchTimeout maximum time in milliseconds a batch is open, 0 or less for no timeout
+     */
+    void setTransactionBatch(int batchSize, long batchTimeout);
+
+    /**
+     * Commit the pending batch of transactions, see {@link #setTransactionBatch(int, long)}.
+     */
+    void flushTransaction();
+
+    /**
+     * Number of (batched) transactions rolled back because their commit failed. The nodes and relations created
+     * in a rolled back batch do not exist, node id's remembered since the previous commit are invalid.
+     * @return the count
+     */
+    int getRollbackCount();
+
+    /**
+     * Is the database opened read-only, i.e. shared with other readers
+     * @return true when no changes are allowed
+     */
+    boolean isReadOnly();
 }
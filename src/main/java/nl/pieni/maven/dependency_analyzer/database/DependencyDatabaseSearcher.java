@@ -22,6 +22,7 @@ import nl.pieni.maven.dependency_analyzer.node.GroupNode;
 import nl.pieni.maven.dependency_analyzer.node.VersionNode;
 import org.apache.maven.model.Dependency;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -83,6 +84,42 @@ public interface DependencyDatabaseSearcher<N> {
      */
     Map<VersionNode, List<VersionNode>> getVersionDependencies(Dependency dependency);
 
+    /**
+     * Find the artifact statements for the dependencies. Each artifact is a separate lookup, duplicates are
+     * looked up once.
+     *
+     * @param dependencies the dependencies
+     * @return the statements found, keyed by groupId:artifactId
+     */
+    Map<String, ArtifactNode> findArtifactNodes(Collection<Dependency> dependencies);
+
+    /**
+     * Retrieve the version nodes of the artifacts found, see {@link #getVersionNodes(Dependency)}. The artifacts
+     * are not looked up again.
+     *
+     * @param artifactNodes the artifacts, as found by {@link #findArtifactNodes(Collection)}
+     * @return the list of version statements, keyed by groupId:artifactId
+     */
+    Map<String, List<VersionNode>> getVersionNodes(Map<String, ArtifactNode> artifactNodes);
+
+    /**
+     * Retrieve the depending artifacts of the artifacts found, see {@link #getDependingArtifacts(Dependency)}.
+     * The artifacts are not looked up again.
+     *
+     * @param artifactNodes the artifacts, as found by {@link #findArtifactNodes(Collection)}
+     * @return A separate list for each scope, keyed by groupId:artifactId
+     */
+    Map<String, Map<ScopedRelation, List<ArtifactNode>>> getDependingArtifacts(Map<String, ArtifactNode> artifactNodes);
+
+    /**
+     * Retrieve the version dependencies of the artifacts found, see {@link #getVersionDependencies(Dependency)}.
+     * The artifacts are not looked up again.
+     *
+     * @param artifactNodes the artifacts, as found by {@link #findArtifactNodes(Collection)}
+     * @return List for each version available, keyed by groupId:artifactId
+     */
+    Map<String, Map<VersionNode, List<VersionNode>>> getVersionDependencies(Map<String, ArtifactNode> artifactNodes);
+
     /**
      * Shutdown the searcher, ie. disconnect
      */
@@ -94,4 +131,28 @@ public interface DependencyDatabaseSearcher<N> {
      * @param key  the key
      */
     void indexOnProperty(final N node, final String key);
+
+    /**
+     * Index the node on a value that is not a property of the node, used for the composite keys
+     * (see {@link nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeProperties#ARTIFACT_KEY}).
+     *
+     * @param node  the node
+     * @param key   the index key
+     * @param value the value
+     */
+    void indexOnKey(final N node, final String key, final String value);
+
+    /**
+     * Remove the cached lookups of the {@link Dependency}, called after nodes for the dependency are inserted
+     *
+     * @param dependency the dependency
+     */
+    void invalidate(Dependency dependency);
+
+    /**
+     * Hit and miss statistics of the lookup cache
+     *
+     * @return the statistics
+     */
+    String getCacheStatistics();
 }
@@ -20,6 +20,7 @@ import org.apache.maven.model.Dependency;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.List;
 
 /**
  * Place holder for the data collected for the report.
@@ -35,4 +36,14 @@ public interface DependencyReport {
      */
     void createReport(Dependency dependency, Writer writer) throws IOException;
 
+    /**
+     * Print the reports of the dependencies, the artifacts are looked up once and the data of all reports is
+     * collected before writing. Each report is preceded by a line naming the requested artifact.
+     *
+     * @param dependencies the dependencies, artifacts not found only get the line naming them
+     * @param writer       the Writer
+     * @throws IOException In case of error
+     */
+    void createReports(List<Dependency> dependencies, Writer writer) throws IOException;
+
 }
@@ -16,14 +16,18 @@
 
 package nl.pieni.maven.dependency_analyzer.mojo;
 
+import nl.pieni.maven.dependency_analyzer.daemon.DaemonClient;
 import nl.pieni.maven.dependency_analyzer.database.DependencyDatabase;
 import nl.pieni.maven.dependency_analyzer.database.DependencyDatabaseSearcher;
 import nl.pieni.maven.dependency_analyzer.neo4j.database.DependencyDatabaseImpl;
 import nl.pieni.maven.dependency_analyzer.neo4j.database.DependencyDatabaseSearcherImpl;
+import nl.pieni.maven.dependency_analyzer.neo4j.database.StoreConfiguration;
 import nl.pieni.maven.dependency_analyzer.repository.RepositorySearcher;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 
+import java.util.Map;
+
 /**
  * base class for the Mojo's
  */
@@ -41,6 +45,43 @@ public abstract class AbstractAnalyzeMojo extends AbstractMojo {
      */
     private String databaseDirectory;
 
+    /**
+     * Send the report and export requests to a running analyzer daemon (goal daemon), the database is
+     * only opened when no daemon is running.
+     *
+     * @parameter property="useDaemon" default-value="false"
+     */
+    private boolean useDaemon;
+
+    /**
+     * Port of the analyzer daemon, the daemon only accepts local connections.
+     *
+     * @parameter property="daemonPort" default-value="8765"
+     */
+    private int daemonPort;
+
+    /**
+     * Maximum number of groups, artifacts and versions for which the node found by the searcher is cached.
+     *
+     * @parameter property="searcherCacheSize" default-value="10000"
+     */
+    private int searcherCacheSize;
+
+    /**
+     * Memory mapped for the store files: auto (sized from the store files and the memory available), default
+     * (the Neo4j defaults) or explicit sizes, node=25M,relationship=100M,property=50M,string=100M,array=10M
+     *
+     * @parameter property="mappedMemory" default-value="auto"
+     */
+    private String mappedMemory;
+
+    /**
+     * Object cache of the database: soft, weak, strong or none.
+     *
+     * @parameter property="cacheType" default-value="soft"
+     */
+    private String cacheType;
+
     /**
      * The Dependency database
      */
@@ -54,12 +95,90 @@ public abstract class AbstractAnalyzeMojo extends AbstractMojo {
 
     @SuppressWarnings("unchecked")
     protected void setup() throws MojoExecutionException {
-        database = new DependencyDatabaseImpl(getLog(), databaseDirectory);
-        searcher = new DependencyDatabaseSearcherImpl(getLog(), database);
+        if (!openDatabase()) {
+            return;
+        }
+        Map<String, String> config = storeConfiguration(databaseDirectory);
+        try {
+            database = new DependencyDatabaseImpl(getLog(), databaseDirectory, readOnlyDatabase(), config);
+        } catch (RuntimeException e) {
+            if (readOnlyDatabase()) {
+                throw new MojoExecutionException("Unable to open database " + databaseDirectory
+                        + " read-only, it is in use for writing or not shut down cleanly", e);
+            }
+            throw e;
+        }
+        searcher = new DependencyDatabaseSearcherImpl(getLog(), database, searcherCacheSize);
     }
 
     protected void tearDown() {
-        database.shutdownDatabase();
+        if (searcher != null) {
+            getLog().info(searcher.getCacheStatistics());
+        }
+        if (database != null) {
+            database.shutdownDatabase();
+        }
+    }
+
+    /**
+     * The store configuration (mappedMemory, cacheType) for a database directory
+     *
+     * @param directory the database directory
+     * @return the configuration
+     * @throws MojoExecutionException when the settings are invalid
+     */
+    protected Map<String, String> storeConfiguration(final String directory) throws MojoExecutionException {
+        try {
+            return new StoreConfiguration(getLog(), directory).create(mappedMemory, cacheType);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Open the dependency database during {@link #setup()}. When false, {@link #getDatabase()} and
+     * {@link #getSearcher()} return null.
+     *
+     * @return true when the database is to be opened
+     */
+    protected boolean openDatabase() {
+        return true;
+    }
+
+    /**
+     * Open the database read-only during {@link #setup()}, several read-only processes can use the same
+     * database directory at once.
+     *
+     * @return true when the database is only read
+     */
+    protected boolean readOnlyDatabase() {
+        return false;
+    }
+
+    /**
+     * The client of a running daemon
+     *
+     * @return the client, null when the daemon is not used or not running
+     */
+    protected DaemonClient getDaemonClient() {
+        if (!useDaemon) {
+            return null;
+        }
+        DaemonClient client = new DaemonClient(daemonPort);
+        if (!client.isRunning()) {
+            getLog().info("No analyzer daemon running on port " + daemonPort + ", opening the database");
+            return null;
+        }
+        getLog().info("Using the analyzer daemon on port " + daemonPort);
+        return client;
+    }
+
+    protected int getDaemonPort() {
+        return daemonPort;
+    }
+
+    protected String getDatabaseDirectory() {
+        return databaseDirectory;
     }
 
     protected DependencyDatabase getDatabase() {
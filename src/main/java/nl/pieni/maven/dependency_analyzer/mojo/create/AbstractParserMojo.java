@@ -18,6 +18,8 @@ package nl.pieni.maven.dependency_analyzer.mojo.create;
 
 import nl.pieni.maven.dependency_analyzer.filter.DependencyIncludeFilter;
 import nl.pieni.maven.dependency_analyzer.mojo.AbstractAnalyzeMojo;
+import nl.pieni.maven.dependency_analyzer.repository.GroupPatterns;
+import nl.pieni.maven.dependency_analyzer.repository.filesystem.FileSystemRepositorySearcher;
 import nl.pieni.maven.dependency_analyzer.repository.remote.RemoteRepositorySearcher;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DefaultArtifact;
@@ -43,6 +45,7 @@ import org.sonatype.nexus.index.NexusIndexer;
 import org.sonatype.nexus.index.updater.IndexUpdater;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -107,7 +110,45 @@ abstract public class AbstractParserMojo extends AbstractAnalyzeMojo {
     Boolean useLatestOnly;
 
     /**
-     * Folder to store the DB in
+     * Maximum number of repository indexes downloaded and updated concurrently.
+     *
+     * @parameter property="indexUpdateThreads" default-value="4"
+     */
+    private int indexUpdateThreads;
+
+    /**
+     * Number of times an interrupted index download is resumed. The partially downloaded index is kept,
+     * a next run also resumes the download.
+     *
+     * @parameter property="indexDownloadRetries" default-value="3"
+     */
+    private int indexDownloadRetries;
+
+    /**
+     * Connect and read timeout in milliseconds of the index download, a stalled transfer is resumed after the
+     * timeout. 0 waits forever.
+     *
+     * @parameter property="indexDownloadTimeout" default-value="60000"
+     */
+    private int indexDownloadTimeout;
+
+    /**
+     * How the repositories are searched. "index" downloads and searches the Nexus index of the repositories,
+     * "filesystem" walks the directory tree of repositories available on the local file system (file:// urls).
+     *
+     * @parameter property="searchMode" default-value="index"
+     */
+    private String searchMode;
+
+    /**
+     * Number of top level directories scanned concurrently when using the filesystem searchMode.
+     *
+     * @parameter property="scanThreads" default-value="4"
+     */
+    private int scanThreads;
+
+    /**
+     * Folder to store the repository indexes in, each repository in a sub folder named after its id
      *
      * @parameter property="indexDirectory" default-value="${project.build.directory}"
      */
@@ -115,12 +156,28 @@ abstract public class AbstractParserMojo extends AbstractAnalyzeMojo {
 
     /**
      * List of groupId's to retrieve from the repository.
-     * A star (*) is appended to the pattern specified
+     * Every pattern is a groupId prefix, a star (*) is appended to the pattern specified. A star is only allowed at
+     * the end of a pattern: com.acme and com.acme* are the same, com.*.billing is rejected.
      *
      * @parameter property="groupFilterPatterns"
      */
     private List<String> groupFilterPatterns;
 
+    /**
+     * Number of shards the groupFilterPatterns are divided over. Each shard (a run with its own shardIndex and
+     * databaseDirectory) ingests a disjoint subset of the patterns, the merge goal combines the shard databases.
+     *
+     * @parameter property="shardCount" default-value="1"
+     */
+    private int shardCount;
+
+    /**
+     * The shard ingested by this run, 0 up to shardCount.
+     *
+     * @parameter property="shardIndex" default-value="0"
+     */
+    private int shardIndex;
+
     /**
      * List of groupId:artifactId elements for inclusion in the graph generated.
      * follows syntax from maven-common-artifact-filters (AbstractStrictPatternArtifactFilter)
@@ -143,8 +200,28 @@ abstract public class AbstractParserMojo extends AbstractAnalyzeMojo {
     private ProjectBuildingRequest buildRequest;
 
     protected void setup() throws MojoExecutionException {
+        try {
+            GroupPatterns.toPrefixes(groupFilterPatterns);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        if (shardCount > 1) {
+            if (shardIndex < 0 || shardIndex >= shardCount) {
+                throw new MojoExecutionException("shardIndex " + shardIndex + " is not in the range 0 up to shardCount " + shardCount);
+            }
+            if (getGroupFilterPatterns().isEmpty()) {
+                throw new MojoExecutionException("No groupFilterPatterns for shard " + shardIndex + ", shardCount exceeds the number of patterns");
+            }
+            getLog().info("Shard " + shardIndex + " of " + shardCount + ": " + getGroupFilterPatterns());
+        }
         super.setup();
-        this.repositorySearcher = new RemoteRepositorySearcher(indexer, indexUpdater, getLog(), indexDirectory, allowSnapshots);
+        if ("filesystem".equals(searchMode)) {
+            this.repositorySearcher = new FileSystemRepositorySearcher(getLog(), allowSnapshots, scanThreads);
+        } else if ("index".equals(searchMode)) {
+            this.repositorySearcher = new RemoteRepositorySearcher(indexer, indexUpdater, getLog(), indexDirectory, allowSnapshots, indexUpdateThreads, indexDownloadRetries, indexDownloadTimeout);
+        } else {
+            throw new MojoExecutionException("Unsupported searchMode " + searchMode + ", use index or filesystem");
+        }
         this.buildRequest = makeBuildingRequest();
         this.includeFilter = new DependencyIncludeFilter(includeFilterPatterns);
     }
@@ -152,6 +229,7 @@ abstract public class AbstractParserMojo extends AbstractAnalyzeMojo {
 
     /**
      * Convert a {|@link ArtifactInfo} object to a Maven project.
+     * Safe to call concurrently, each call uses its own copy of the building request.
      *
      * @param artifactInfo The artifact
      * @return A {@link org.apache.maven.project.MavenProject}
@@ -161,7 +239,7 @@ abstract public class AbstractParserMojo extends AbstractAnalyzeMojo {
     MavenProject artifactInfo2MavenProject(ArtifactInfo artifactInfo) throws ProjectBuildingException {
         VersionRange versionRange = VersionRange.createFromVersion(artifactInfo.version);
         Artifact parentArtifact = new DefaultArtifact(artifactInfo.groupId, artifactInfo.artifactId, versionRange, "compile", "pom", null, new DefaultArtifactHandler());
-        ProjectBuildingResult buildingResult = projectBuilder.build(parentArtifact, this.buildRequest);
+        ProjectBuildingResult buildingResult = projectBuilder.build(parentArtifact, new DefaultProjectBuildingRequest(this.buildRequest));
         return buildingResult.getProject();
     }
 
@@ -194,11 +272,37 @@ abstract public class AbstractParserMojo extends AbstractAnalyzeMojo {
         }
     }
 
+    /**
+     * The group patterns searched for, of a sharded run only the patterns of the shard. The (normalized)
+     * patterns are assigned to the shards round robin.
+     *
+     * @return the patterns
+     */
     List<String> getGroupFilterPatterns() {
-        return groupFilterPatterns;
+        if (shardCount <= 1) {
+            return groupFilterPatterns;
+        }
+        List<String> prefixes = GroupPatterns.toPrefixes(groupFilterPatterns);
+        List<String> shard = new ArrayList<String>();
+        for (int i = shardIndex; i < prefixes.size(); i += shardCount) {
+            shard.add(prefixes.get(i));
+        }
+        return shard;
     }
 
     DependencyIncludeFilter getIncludeFilter() {
         return includeFilter;
     }
+
+    List<String> getIncludeFilterPatterns() {
+        return includeFilterPatterns;
+    }
+
+    File getIndexDirectory() {
+        return indexDirectory;
+    }
+
+    File getLocalRepositoryDirectory() {
+        return new File(localRepository.getBasedir());
+    }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.ProjectBuildingException;
+import org.sonatype.nexus.index.ArtifactInfo;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pipeline resolving the {@link ArtifactInfo} elements found in the index.
+ * The resolving (pom parsing) is performed by a pool of worker threads, the resolved artifacts are handed to the
+ * {@link Writer} on the thread calling {@link #process(ArtifactInfo)} and {@link #finish()}, the database is thus
+ * only accessed by a single thread.
+ */
+class ArtifactResolvingPipeline {
+
+    /**
+     * Resolves an {@link ArtifactInfo}, called from the worker threads.
+     */
+    interface Resolver {
+        /**
+         * Resolve the artifact
+         *
+         * @param artifactInfo the artifact found in the index
+         * @return the resolved artifact
+         * @throws ProjectBuildingException Error parsing the POM file.
+         */
+        ResolvedArtifact resolve(ArtifactInfo artifactInfo) throws ProjectBuildingException;
+    }
+
+    /**
+     * Writes a {@link ResolvedArtifact}, only called from the thread driving the pipeline.
+     */
+    interface Writer {
+        /**
+         * Write the artifact
+         *
+         * @param resolvedArtifact the resolved artifact
+         */
+        void write(ResolvedArtifact resolvedArtifact);
+    }
+
+    private final Resolver resolver;
+    private final Writer writer;
+    private final Log log;
+    private final int queueSize;
+    private final ExecutorService executor;
+    private final CompletionService<ResolvedArtifact> completionService;
+
+    /*
+     * Number of submitted artifacts not yet written
+     */
+    private int pending = 0;
+
+    /**
+     * Default constructor
+     *
+     * @param resolver  the resolver
+     * @param writer    the writer
+     * @param threads   number of resolving threads, 1 or less resolves on the calling thread
+     * @param queueSize maximum number of artifacts submitted but not yet written
+     * @param log       the logger
+     */
+    ArtifactResolvingPipeline(final Resolver resolver, final Writer writer, final int threads, final int queueSize, final Log log) {
+        this.resolver = resolver;
+        this.writer = writer;
+        this.log = log;
+        this.queueSize = Math.max(queueSize, 1);
+        if (threads > 1) {
+            this.executor = Executors.newFixedThreadPool(threads);
+            this.completionService = new ExecutorCompletionService<ResolvedArtifact>(executor);
+            log.info("Resolving artifacts using " + threads + " threads");
+        } else {
+            this.executor = null;
+            this.completionService = null;
+        }
+    }
+
+    /**
+     * Process an artifact. Blocks when the maximum number of pending artifacts is reached until
+     * (at least) one of them is written.
+     *
+     * @param artifactInfo the artifact
+     * @throws MojoExecutionException Error during resolving
+     */
+    void process(final ArtifactInfo artifactInfo) throws MojoExecutionException {
+        if (executor == null) {
+            write(resolve(artifactInfo));
+            return;
+        }
+
+        completionService.submit(new Callable<ResolvedArtifact>() {
+            @Override
+            public ResolvedArtifact call() {
+                return resolve(artifactInfo);
+            }
+        });
+        pending++;
+
+        while (pending >= queueSize) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Wait for all pending artifacts to be resolved and written.
+     *
+     * @throws MojoExecutionException Error during resolving
+     */
+    void finish() throws MojoExecutionException {
+        while (pending > 0) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Take the next resolved artifact and write it.
+     *
+     * @throws MojoExecutionException Error during resolving or interrupted
+     */
+    private void writeNext() throws MojoExecutionException {
+        try {
+            ResolvedArtifact resolvedArtifact = completionService.take().get();
+            pending--;
+            write(resolvedArtifact);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while resolving artifacts", e);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Error resolving artifact", e.getCause());
+        }
+    }
+
+    /**
+     * Resolve the artifact
+     *
+     * @param artifactInfo the artifact
+     * @return resolved artifact, null when the project could not be build
+     */
+    private ResolvedArtifact resolve(final ArtifactInfo artifactInfo) {
+        try {
+            return resolver.resolve(artifactInfo);
+        } catch (ProjectBuildingException e) {
+            log.info("Error building project " + artifactInfo);
+            return null;
+        }
+    }
+
+    /**
+     * Write the resolved artifact
+     *
+     * @param resolvedArtifact the artifact, ignored when null
+     */
+    private void write(final ResolvedArtifact resolvedArtifact) {
+        if (resolvedArtifact != null) {
+            writer.write(resolvedArtifact);
+        }
+    }
+}
@@ -17,23 +17,26 @@
 package nl.pieni.maven.dependency_analyzer.mojo.create;
 
 import nl.pieni.maven.dependency_analyzer.database.DependencyNodeProcessor;
+import nl.pieni.maven.dependency_analyzer.neo4j.database.BatchDependencyNodeProcessorImpl;
 import nl.pieni.maven.dependency_analyzer.neo4j.database.DependencyNodeProcessorImpl;
-import nl.pieni.maven.dependency_analyzer.util.VersionComparator;
+import nl.pieni.maven.dependency_analyzer.repository.ArtifactInfoGroupStream;
+import nl.pieni.maven.dependency_analyzer.repository.LatestVersionSelector;
+import nl.pieni.maven.dependency_analyzer.repository.MergedArtifactInfoGroupStream;
+import nl.pieni.maven.dependency_analyzer.repository.pom.FastPomResolver;
+import nl.pieni.maven.dependency_analyzer.repository.pom.PomReaderException;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuildingException;
-import org.apache.maven.settings.building.SettingsBuildingException;
 import org.sonatype.nexus.index.ArtifactInfo;
 import org.sonatype.nexus.index.ArtifactInfoGroup;
 import org.sonatype.nexus.index.context.UnsupportedExistingLuceneIndexException;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * Creation of the dependency DB
@@ -45,6 +48,11 @@ import java.util.TreeSet;
 public class CreateDatabaseMojo
         extends AbstractParserMojo {
 
+    /*
+     * Id of the stream of the merged repositories, used in the checkpoint
+     */
+    private static final String MERGED_STREAM_ID = "merged-repositories";
+
 
     /**
      * Node Processor
@@ -60,6 +68,160 @@ public class CreateDatabaseMojo
      */
     private List<String> packaging;
 
+    /**
+     * Number of threads used to resolve (parse) the pom files of the artifacts found. The database is always
+     * written by a single thread.
+     *
+     * @parameter property="resolverThreads" default-value="1"
+     */
+    private int resolverThreads;
+
+    /**
+     * Maximum number of artifacts waiting to be resolved or written to the database when using multiple
+     * resolver threads.
+     *
+     * @parameter property="resolverQueueSize" default-value="100"
+     */
+    private int resolverQueueSize;
+
+    /**
+     * Keep the dependencies of resolved release artifacts in a cache file in the indexDirectory, unchanged
+     * releases are not parsed again in subsequent runs.
+     *
+     * @parameter property="useResolvedArtifactCache" default-value="true"
+     */
+    private boolean useResolvedArtifactCache;
+
+    /*
+     * Cache of the dependencies of previously resolved artifacts, null when disabled
+     */
+    private ResolvedArtifactCache resolvedArtifactCache;
+
+    /**
+     * Only process the artifacts added to the repository indexes since the previous (incremental) run. The state is
+     * kept in the databaseDirectory, the first run or a run with changed groupFilterPatterns processes all artifacts.
+     * Artifacts that failed to resolve are retried in the next runs until they resolve.
+     *
+     * @parameter property="incremental" default-value="false"
+     */
+    private boolean incremental;
+
+    /*
+     * State of the incremental ingestion, null when disabled
+     */
+    private IncrementalState incrementalState;
+
+    /**
+     * Number of database operations committed in a single transaction.
+     *
+     * @parameter property="transactionBatchSize" default-value="1000"
+     */
+    private int transactionBatchSize;
+
+    /**
+     * Maximum time in milliseconds before a batch of database operations is committed, 0 for no limit.
+     *
+     * @parameter property="transactionBatchTimeout" default-value="10000"
+     */
+    private long transactionBatchTimeout;
+
+    /**
+     * Maximum number of groups, artifacts and versions for which the node is kept in memory during ingestion.
+     *
+     * @parameter property="nodeCacheSize" default-value="100000"
+     */
+    private int nodeCacheSize;
+
+    /**
+     * Create the database using the (non transactional) batch inserter. Only used when the databaseDirectory is
+     * empty, an existing database is always updated using transactions.
+     *
+     * @parameter property="bulkCreate" default-value="false"
+     */
+    private boolean bulkCreate;
+
+    /**
+     * How the dependencies of an artifact are determined. "full" builds the Maven project for each artifact,
+     * "fast" reads the pom files present in the local repository with a streaming parser and only falls back to
+     * building the Maven project when the pom cannot be resolved that way.
+     *
+     * @parameter property="resolutionMode" default-value="full"
+     */
+    private String resolutionMode;
+
+    /*
+     * Resolver for the fast resolution mode, null when building the full project
+     */
+    private FastPomResolver fastPomResolver;
+
+    /**
+     * Number of GA groups processed between two checkpoints. At a checkpoint all pending artifacts are committed
+     * to the database and the progress is recorded in the databaseDirectory. 0 disables the checkpoints.
+     * No checkpoints are recorded when bulk creating.
+     *
+     * @parameter property="checkpointInterval" default-value="100"
+     */
+    private int checkpointInterval;
+
+    /**
+     * Resume an aborted run after the last checkpoint recorded in the databaseDirectory.
+     *
+     * @parameter property="resume" default-value="false"
+     */
+    private boolean resume;
+
+    /**
+     * Merge the artifacts found in all repositories before processing. An artifact present in more than one
+     * repository is only processed once, taken from the repository with the highest precedence. When disabled
+     * the repositories are processed one after the other, as before the de-duplication was introduced.
+     *
+     * @parameter property="deduplicateRepositories" default-value="false"
+     */
+    private boolean deduplicateRepositories;
+
+    /**
+     * Ids of the repositories in order of precedence for the de-duplication. Repositories not listed follow in the
+     * configured order.
+     *
+     * @parameter property="repositoryPrecedence"
+     */
+    private List<String> repositoryPrecedence;
+
+    /**
+     * Number of most recent versions of each artifact processed when useLatestOnly is set.
+     *
+     * @parameter property="latestVersionCount" default-value="1"
+     */
+    private int latestVersionCount;
+
+    /**
+     * Skip snapshots and pre-release versions (alpha, beta, milestone, release candidate like 1.0-beta-1 or 2.0-RC1)
+     * when selecting the versions to process.
+     *
+     * @parameter property="releasesOnly" default-value="false"
+     */
+    private boolean releasesOnly;
+
+    /*
+     * Selection of the versions to process
+     */
+    private LatestVersionSelector versionSelector;
+
+    /*
+     * Progress of the ingestion, null when no checkpoints are recorded
+     */
+    private IngestionCheckpoint checkpoint;
+
+    /*
+     * Repository of the checkpoint resumed from, null when not resuming
+     */
+    private String resumeRepositoryId;
+
+    /*
+     * The bulk create processor, null when not bulk creating
+     */
+    private BatchDependencyNodeProcessorImpl batchNodeProcessor;
+
     /*
      * Counter for the statement count
      */
@@ -85,27 +247,56 @@ public class CreateDatabaseMojo
 
         setup();
 
+        ArtifactResolvingPipeline pipeline = new ArtifactResolvingPipeline(new ArtifactResolvingPipeline.Resolver() {
+            @Override
+            public ResolvedArtifact resolve(ArtifactInfo artifactInfo) throws ProjectBuildingException {
+                try {
+                    return resolveArtifactInfo(artifactInfo);
+                } catch (ProjectBuildingException e) {
+                    if (incrementalState != null) {
+                        incrementalState.failed(artifactInfo);
+                    }
+                    throw e;
+                }
+            }
+        }, new ArtifactResolvingPipeline.Writer() {
+            @Override
+            public void write(ResolvedArtifact resolvedArtifact) {
+                writeResolvedArtifact(resolvedArtifact);
+                if (incrementalState != null) {
+                    incrementalState.resolved(resolvedArtifact.getSource());
+                }
+            }
+        }, resolverThreads, resolverQueueSize, getLog());
+
         try {
-            for (ArtifactRepository remoteRepository : remoteRepositories) {
-                Map<String, ArtifactInfoGroup> stringArtifactInfoGroupMap;
-
-                stringArtifactInfoGroupMap = repositorySearcher.searchIndexGrouped(getGroupFilterPatterns(), remoteRepository, packaging);
-
-                Set<String> groupKeySet = stringArtifactInfoGroupMap.keySet();
-                for (String key : groupKeySet) {
-                    ArtifactInfoGroup artifactInfoGroup = stringArtifactInfoGroupMap.get(key);
-                    TreeSet<ArtifactInfo> sortedArtifactInfoTreeSet = new TreeSet<ArtifactInfo>(new VersionComparator());
-                    sortedArtifactInfoTreeSet.addAll(artifactInfoGroup.getArtifactInfos());
-                    if (useLatestOnly) {
-                        ArtifactInfo source = sortedArtifactInfoTreeSet.last();
-                        processArtifactInfo(source);
-                    } else {
-                        for (ArtifactInfo artifactInfo : sortedArtifactInfoTreeSet) {
-                            processArtifactInfo(artifactInfo);
-                        }
+            repositorySearcher.updateIndexes(remoteRepositories);
+            if (deduplicateRepositories) {
+                List<ArtifactInfoGroupStream> streams = new ArrayList<ArtifactInfoGroupStream>();
+                for (ArtifactRepository remoteRepository : orderByPrecedence(remoteRepositories)) {
+                    streams.add(searchIndexStream(remoteRepository));
+                }
+                MergedArtifactInfoGroupStream mergedStream = new MergedArtifactInfoGroupStream(streams);
+                processStream(pipeline, MERGED_STREAM_ID, mergedStream);
+                getLog().info("Skipped " + mergedStream.getDuplicateCount() + " artifacts present in multiple repositories");
+            } else {
+                for (ArtifactRepository remoteRepository : remoteRepositories) {
+                    if (resumeRepositoryId != null && !resumeRepositoryId.equals(remoteRepository.getId())) {
+                        getLog().info("Skipping repository " + remoteRepository.getId() + ", processed before the checkpoint");
+                        continue;
                     }
+                    processStream(pipeline, remoteRepository.getId(), searchIndexStream(remoteRepository));
                 }
             }
+            if (resolvedArtifactCache != null) {
+                resolvedArtifactCache.store();
+            }
+            if (checkpoint != null) {
+                checkpoint.clear();
+            }
+            if (fastPomResolver != null) {
+                getLog().info("Parent and bom models: " + fastPomResolver.getModelCache());
+            }
 
             getLog().info("Inserted " + nodeCreateCount + " elements in the Database");
             getLog().info("Created " + relationCreateCount + " relations in the Database");
@@ -115,49 +306,293 @@ public class CreateDatabaseMojo
         } catch (UnsupportedExistingLuceneIndexException e) {
             throw new MojoExecutionException(e.getMessage(), e);
         } finally {
+            pipeline.shutdown();
             tearDown();
         }
     }
 
+    /**
+     * Search the artifacts of the repository, recording the timestamp of the index searched
+     *
+     * @param repository the repository
+     * @return the groups found
+     * @throws IOException                             error communicating
+     * @throws UnsupportedExistingLuceneIndexException should no happen
+     */
+    private ArtifactInfoGroupStream searchIndexStream(final ArtifactRepository repository) throws IOException, UnsupportedExistingLuceneIndexException {
+        ArtifactInfoGroupStream stream = repositorySearcher.searchIndexStream(getGroupFilterPatterns(), repository, packaging, versionSelector);
+        if (incrementalState != null) {
+            incrementalState.start(repository.getId(), repositorySearcher.getIndexTimestamp(repository));
+        }
+        return stream;
+    }
+
+    /**
+     * Process the groups of artifacts found
+     *
+     * @param pipeline the pipeline resolving and writing the artifacts
+     * @param streamId id of the stream, the repository or {@link #MERGED_STREAM_ID}
+     * @param stream   the groups found, closed when done
+     * @throws MojoExecutionException Error during resolving
+     * @throws IOException            Error reading the index or writing the state
+     */
+    private void processStream(final ArtifactResolvingPipeline pipeline, final String streamId, final ArtifactInfoGroupStream stream) throws MojoExecutionException, IOException {
+        String resumePosition = null;
+        if (resumeRepositoryId != null) {
+            resumePosition = checkpoint.getPosition();
+            resumeRepositoryId = null;
+        }
+        int skipCount = 0;
+        int groupCount = 0;
+        try {
+            ArtifactInfoGroup artifactInfoGroup;
+            while ((artifactInfoGroup = stream.next()) != null) {
+                String position = MergedArtifactInfoGroupStream.position(artifactInfoGroup);
+                if (resumePosition != null && position.compareTo(resumePosition) <= 0) {
+                    continue;
+                }
+                //The streams select the versions per repository, a merged group holds the selection of each repository
+                for (ArtifactInfo artifactInfo : versionSelector.select(artifactInfoGroup.getArtifactInfos())) {
+                    if (isModifiedAfterProcessed(artifactInfo)) {
+                        pipeline.process(artifactInfo);
+                    } else {
+                        skipCount++;
+                    }
+                }
+                groupCount++;
+                if (checkpoint != null && groupCount % checkpointInterval == 0) {
+                    storeCheckpoint(pipeline, streamId, position);
+                }
+            }
+        } finally {
+            stream.close();
+        }
+        pipeline.finish();
+        if (getDatabase() != null) {
+            getDatabase().flushTransaction();
+        }
+
+        if (incrementalState != null) {
+            getLog().info("Skipped " + skipCount + " artifacts of " + streamId + " already processed");
+            incrementalState.advance();
+            incrementalState.store();
+        }
+    }
+
+    /**
+     * Order the repositories on the repositoryPrecedence, the repositories not listed follow in the order configured
+     *
+     * @param repositories the repositories
+     * @return the ordered repositories
+     */
+    private List<ArtifactRepository> orderByPrecedence(final List<ArtifactRepository> repositories) {
+        List<ArtifactRepository> ordered = new ArrayList<ArtifactRepository>();
+        if (repositoryPrecedence != null) {
+            for (String repositoryId : repositoryPrecedence) {
+                for (ArtifactRepository repository : repositories) {
+                    if (repository.getId().equals(repositoryId) && !ordered.contains(repository)) {
+                        ordered.add(repository);
+                    }
+                }
+            }
+        }
+        for (ArtifactRepository repository : repositories) {
+            if (!ordered.contains(repository)) {
+                ordered.add(repository);
+            }
+        }
+        return ordered;
+    }
+
     /**
      * Initialize the environment required for processing.
      */
     protected void setup() throws MojoExecutionException {
+        boolean bulk = bulkCreate && isEmptyDirectory(new File(getDatabaseDirectory()));
+        if (bulkCreate && !bulk) {
+            getLog().info("Database " + getDatabaseDirectory() + " exists, bulk create not possible");
+        }
+        if (bulk) {
+            this.batchNodeProcessor = new BatchDependencyNodeProcessorImpl(getDatabaseDirectory(), getLog());
+        }
         super.setup();
 
-        this.nodeProcessor = new DependencyNodeProcessorImpl(getDatabase(), getSearcher(), getLog());
+        if (bulk) {
+            this.nodeProcessor = batchNodeProcessor;
+        } else {
+            getDatabase().setTransactionBatch(transactionBatchSize, transactionBatchTimeout);
+            this.nodeProcessor = new DependencyNodeProcessorImpl(getDatabase(), getSearcher(), getLog(), nodeCacheSize);
+        }
+        this.versionSelector = new LatestVersionSelector(useLatestOnly ? latestVersionCount : 0, releasesOnly);
+        if ("fast".equals(resolutionMode)) {
+            this.fastPomResolver = new FastPomResolver(getLocalRepositoryDirectory());
+        } else if (!"full".equals(resolutionMode)) {
+            throw new MojoExecutionException("Unsupported resolutionMode " + resolutionMode + ", use full or fast");
+        }
+        if (useResolvedArtifactCache) {
+            this.resolvedArtifactCache = new ResolvedArtifactCache(getIndexDirectory(), getIncludeFilterPatterns(), resolutionMode,
+                    getLog());
+            this.resolvedArtifactCache.load();
+        }
+        if (incremental) {
+            this.incrementalState = new IncrementalState(new File(getDatabaseDirectory()), getGroupFilterPatterns(), getLog());
+            this.incrementalState.load();
+        }
+        if (!bulk && checkpointInterval > 0) {
+            this.checkpoint = new IngestionCheckpoint(new File(getDatabaseDirectory()), getLog());
+            if (resume) {
+                loadCheckpoint();
+            }
+        } else if (resume) {
+            getLog().warn("Resume not possible without checkpoints, processing all artifacts");
+        }
+    }
+
+    /**
+     * Load the checkpoint to resume from
+     */
+    private void loadCheckpoint() {
+        if (!checkpoint.load()) {
+            getLog().info("No checkpoint found, processing all artifacts");
+            return;
+        }
+        List<String> streamIds = new ArrayList<String>();
+        if (deduplicateRepositories) {
+            streamIds.add(MERGED_STREAM_ID);
+        } else {
+            for (ArtifactRepository remoteRepository : remoteRepositories) {
+                streamIds.add(remoteRepository.getId());
+            }
+        }
+        for (String streamId : streamIds) {
+            if (streamId.equals(checkpoint.getRepositoryId())) {
+                this.resumeRepositoryId = checkpoint.getRepositoryId();
+                this.nodeCreateCount = checkpoint.getNodeCreateCount();
+                this.relationCreateCount = checkpoint.getRelationCreateCount();
+                getLog().info("Resuming " + resumeRepositoryId + " after " + checkpoint.getPosition());
+                return;
+            }
+        }
+        getLog().warn("Checkpoint repository " + checkpoint.getRepositoryId() + " not processed in this configuration, processing all artifacts");
+    }
+
+    /**
+     * Commit all pending artifacts and record the progress
+     *
+     * @param pipeline     the pipeline holding the pending artifacts
+     * @param repositoryId the repository being processed
+     * @param position     position of the last completed group
+     * @throws MojoExecutionException Error during resolving
+     * @throws IOException            Unable to write the checkpoint
+     */
+    private void storeCheckpoint(final ArtifactResolvingPipeline pipeline, final String repositoryId, final String position) throws MojoExecutionException, IOException {
+        pipeline.finish();
+        getDatabase().flushTransaction();
+        checkpoint.store(repositoryId, position, nodeCreateCount, relationCreateCount);
+    }
+
+    /**
+     * The dependency database is not opened when bulk creating
+     *
+     * @return true when the database is to be opened
+     */
+    @Override
+    protected boolean openDatabase() {
+        return batchNodeProcessor == null;
+    }
+
+    /**
+     * Shutdown the bulk create processor (creating the index) or the database.
+     */
+    @Override
+    protected void tearDown() {
+        if (batchNodeProcessor != null) {
+            batchNodeProcessor.shutdown();
+        }
+        super.tearDown();
+    }
+
+    /**
+     * Is the directory absent or empty
+     *
+     * @param directory the directory
+     * @return true when no files are present
+     */
+    private boolean isEmptyDirectory(final File directory) {
+        String[] files = directory.list();
+        return files == null || files.length == 0;
+    }
+
+    /**
+     * Was the artifact added to the index after the index processed by the previous incremental run, or did it
+     * fail in a previous run
+     *
+     * @param artifactInfo the artifact
+     * @return true when the artifact needs processing
+     */
+    private boolean isModifiedAfterProcessed(final ArtifactInfo artifactInfo) {
+        return incrementalState == null || !incrementalState.isProcessed(artifactInfo);
     }
 
     /**
-     * process/parse a artifact returned from the nexus query.
-     * the project and its found dependencies are added to the database
+     * Resolve (parse) a artifact returned from the nexus query.
+     * Called from the resolver threads, so no access to the database is allowed.
      *
      * @param source the found artifact
-     * @throws SettingsBuildingException Unable to parse the settings file
+     * @return the artifact and its dependencies selected for inclusion
+     * @throws ProjectBuildingException Error parsing the POM file
      */
-    private void processArtifactInfo(final ArtifactInfo source)  {
+    private ResolvedArtifact resolveArtifactInfo(final ArtifactInfo source) throws ProjectBuildingException {
+        Dependency project = artifactInfo2Dependency(source);
+        if (resolvedArtifactCache != null) {
+            List<Dependency> cached = resolvedArtifactCache.get(source);
+            if (cached != null) {
+                return new ResolvedArtifact(source, project, cached);
+            }
+        }
 
-        try {
+        List<Dependency> dependencyList = null;
+        if (fastPomResolver != null) {
+            try {
+                dependencyList = fastPomResolver.resolveDependencies(source.groupId, source.artifactId, source.version);
+            } catch (PomReaderException e) {
+                if (getLog().isDebugEnabled()) {
+                    getLog().debug("Fast resolution of " + source + " not possible: " + e.getMessage());
+                }
+            }
+        }
+        if (dependencyList == null) {
             MavenProject mavenProject = artifactInfo2MavenProject(source);
-            Dependency project = artifactInfo2Dependency(source);
+            dependencyList = mavenProject.getDependencies();
+        }
+        List<Dependency> filtered = getIncludeFilter().filter(dependencyList);
+        if (resolvedArtifactCache != null) {
+            resolvedArtifactCache.put(source, filtered);
+        }
+        return new ResolvedArtifact(source, project, filtered);
+    }
 
-            getLog().info("Processing: " + project);
-            List<Dependency> dependencyList = mavenProject.getDependencies();
-            List<Dependency> filtered = getIncludeFilter().filter(dependencyList);
-            if (filtered.size() > 0) {
-                nodeCreateCount += nodeProcessor.addArtifact(project);
-            } else {
-                getLog().info("No dependencies for inclusion selected");
-            }
+    /**
+     * Add the resolved artifact and its found dependencies to the database
+     *
+     * @param resolvedArtifact the resolved artifact
+     */
+    private void writeResolvedArtifact(final ResolvedArtifact resolvedArtifact) {
+        Dependency project = resolvedArtifact.getProject();
+        List<Dependency> filtered = resolvedArtifact.getDependencies();
 
-            for (Dependency dependency : filtered) {
-                getLog().info("Adding dependency: " + dependency);
-                nodeCreateCount += nodeProcessor.addArtifact(dependency);
-                relationCreateCount += nodeProcessor.addRelation(project, dependency);
+        getLog().info("Processing: " + project);
+        if (filtered.size() > 0) {
+            nodeCreateCount += nodeProcessor.addArtifact(project);
+        } else {
+            getLog().info("No dependencies for inclusion selected");
+        }
+
+        for (Dependency dependency : filtered) {
+            getLog().info("Adding dependency: " + dependency);
+            nodeCreateCount += nodeProcessor.addArtifact(dependency);
+            relationCreateCount += nodeProcessor.addRelation(project, dependency);
 
-            }
-        } catch (ProjectBuildingException e) {
-            getLog().info("Error building project " + source);
         }
     }
 
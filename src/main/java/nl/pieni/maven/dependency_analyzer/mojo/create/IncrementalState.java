@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import nl.pieni.maven.dependency_analyzer.repository.ArtifactInfoGroupStream;
+import org.apache.maven.plugin.logging.Log;
+import org.sonatype.nexus.index.ArtifactInfo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * State of the incremental ingestion. Records per repository the timestamp of the index processed, artifacts
+ * added to the index before that moment are already in the database. The moment an artifact was added to the index
+ * is the record timestamp of the index, not the lastModified of the artifact: a proxy repository keeps the remote
+ * lastModified of an old artifact it proxies today.
+ * Artifacts that failed to resolve are recorded by GAV and sha1 and retried in every run until they resolve, they do
+ * not hold back the timestamp. The recorded state is ignored when the group filter patterns differ from the ones
+ * used to create it.
+ */
+class IncrementalState {
+    /** File name of the state **/
+    static final String STATE_FILE_NAME = "incremental-state.properties";
+    private static final String PATTERNS_KEY = "groupFilterPatterns";
+    private static final String INDEX_TIMESTAMP_SUFFIX = ".indexTimestamp";
+    private static final String FAILED_INFIX = ".failed.";
+
+    private final File stateFile;
+    private final String patternsKey;
+    private final Log log;
+    private final Properties properties = new Properties();
+    private final Map<String, Long> started = new HashMap<String, Long>();
+
+    /**
+     * Default constructor
+     *
+     * @param directory           directory holding the state file
+     * @param groupFilterPatterns the group patterns searched for
+     * @param log                 the logger
+     */
+    IncrementalState(final File directory, final List<String> groupFilterPatterns, final Log log) {
+        this.stateFile = new File(directory, STATE_FILE_NAME);
+        this.patternsKey = String.valueOf(groupFilterPatterns);
+        this.log = log;
+    }
+
+    /**
+     * Read the state file, a missing or unreadable file results in a full ingestion.
+     */
+    void load() {
+        properties.clear();
+        if (!stateFile.exists()) {
+            log.info("No incremental state found, processing all artifacts");
+            return;
+        }
+        InputStream in = null;
+        try {
+            in = new FileInputStream(stateFile);
+            properties.load(in);
+        } catch (IOException e) {
+            log.warn("Unable to read incremental state " + stateFile + ", processing all artifacts: " + e.getMessage());
+            properties.clear();
+        } finally {
+            close(in);
+        }
+        if (!patternsKey.equals(properties.getProperty(PATTERNS_KEY))) {
+            log.info("groupFilterPatterns changed since last run, processing all artifacts");
+            properties.clear();
+        }
+        int failedCount = 0;
+        for (String key : properties.stringPropertyNames()) {
+            if (key.contains(FAILED_INFIX)) {
+                failedCount++;
+            }
+        }
+        if (failedCount > 0) {
+            log.info("Retrying " + failedCount + " artifacts that failed to resolve before");
+        }
+    }
+
+    /**
+     * The timestamp of the index processed for the repository
+     *
+     * @param repositoryId the repository
+     * @return the timestamp, 0 when the repository was never processed
+     */
+    long getIndexTimestamp(final String repositoryId) {
+        String value = properties.getProperty(repositoryId + INDEX_TIMESTAMP_SUFFIX);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid incremental state for repository " + repositoryId + ": " + value);
+            return 0;
+        }
+    }
+
+    /**
+     * Record the timestamp of the index processed for the repository
+     *
+     * @param repositoryId   the repository
+     * @param indexTimestamp the timestamp
+     */
+    void setIndexTimestamp(final String repositoryId, final long indexTimestamp) {
+        properties.setProperty(repositoryId + INDEX_TIMESTAMP_SUFFIX, String.valueOf(indexTimestamp));
+    }
+
+    /**
+     * Record the timestamp of the index of a repository about to be processed, it becomes the processed timestamp
+     * when {@link #advance()} is called
+     *
+     * @param repositoryId   the repository
+     * @param indexTimestamp the timestamp of its index, 0 when unknown
+     */
+    synchronized void start(final String repositoryId, final long indexTimestamp) {
+        started.put(repositoryId, indexTimestamp);
+    }
+
+    /**
+     * Is the artifact processed by a previous run: added to the index before the timestamp processed and not failed
+     *
+     * @param artifactInfo the artifact
+     * @return true when the artifact can be skipped
+     */
+    boolean isProcessed(final ArtifactInfo artifactInfo) {
+        long processedUntil = getIndexTimestamp(artifactInfo.repository);
+        if (processedUntil <= 0 || indexed(artifactInfo) > processedUntil) {
+            return false;
+        }
+        return !sha1(artifactInfo).equals(properties.getProperty(failedKey(artifactInfo)));
+    }
+
+    /**
+     * Record an artifact that could not be resolved, called from the resolver threads
+     *
+     * @param artifactInfo the artifact
+     */
+    void failed(final ArtifactInfo artifactInfo) {
+        properties.setProperty(failedKey(artifactInfo), sha1(artifactInfo));
+    }
+
+    /**
+     * Record an artifact written to the database, a previous failure is forgotten
+     *
+     * @param artifactInfo the artifact
+     */
+    void resolved(final ArtifactInfo artifactInfo) {
+        properties.remove(failedKey(artifactInfo));
+    }
+
+    /**
+     * Advance the timestamp of each repository started to the timestamp of its index
+     */
+    synchronized void advance() {
+        for (Map.Entry<String, Long> entry : started.entrySet()) {
+            if (entry.getValue() > getIndexTimestamp(entry.getKey())) {
+                setIndexTimestamp(entry.getKey(), entry.getValue());
+            }
+        }
+        started.clear();
+    }
+
+    /**
+     * The moment the artifact was added to the index, the lastModified of the artifact when the index does not tell
+     *
+     * @param artifactInfo the artifact
+     * @return the timestamp
+     */
+    static long indexed(final ArtifactInfo artifactInfo) {
+        String value = artifactInfo.getAttributes().get(ArtifactInfoGroupStream.INDEXED_ATTRIBUTE);
+        if (value != null) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                //Use the lastModified
+            }
+        }
+        return artifactInfo.lastModified;
+    }
+
+    private String failedKey(final ArtifactInfo artifactInfo) {
+        String key = artifactInfo.repository + FAILED_INFIX + artifactInfo.groupId + ":" + artifactInfo.artifactId + ":" + artifactInfo.version;
+        return artifactInfo.classifier == null ? key : key + ":" + artifactInfo.classifier;
+    }
+
+    private String sha1(final ArtifactInfo artifactInfo) {
+        return artifactInfo.sha1 == null ? "" : artifactInfo.sha1;
+    }
+
+    /**
+     * Write the state file
+     *
+     * @throws IOException Unable to write the file
+     */
+    void store() throws IOException {
+        File directory = stateFile.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        properties.setProperty(PATTERNS_KEY, patternsKey);
+        OutputStream out = new FileOutputStream(stateFile);
+        try {
+            properties.store(out, "dependency-analyzer incremental state");
+        } finally {
+            out.close();
+        }
+    }
+
+    private void close(final InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.debug("Error closing " + stateFile + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Progress of a running ingestion. Records the repository and the last GA group of which all artifacts are
+ * committed to the database, together with the counters. A run that is aborted can be resumed after that group.
+ * The checkpoint is removed when the ingestion completes.
+ */
+class IngestionCheckpoint {
+    /** File name of the checkpoint **/
+    static final String CHECKPOINT_FILE_NAME = "ingestion-checkpoint.properties";
+    private static final String REPOSITORY_KEY = "repository";
+    private static final String POSITION_KEY = "position";
+    private static final String NODE_COUNT_KEY = "nodeCreateCount";
+    private static final String RELATION_COUNT_KEY = "relationCreateCount";
+
+    private final File checkpointFile;
+    private final Log log;
+    private final Properties properties = new Properties();
+
+    /**
+     * Default constructor
+     *
+     * @param directory directory holding the checkpoint file
+     * @param log       the logger
+     */
+    IngestionCheckpoint(final File directory, final Log log) {
+        this.checkpointFile = new File(directory, CHECKPOINT_FILE_NAME);
+        this.log = log;
+    }
+
+    /**
+     * Read the checkpoint file, a missing or unreadable file results in an ingestion from the start.
+     *
+     * @return true when a checkpoint is found
+     */
+    boolean load() {
+        properties.clear();
+        if (!checkpointFile.exists()) {
+            return false;
+        }
+        InputStream in = null;
+        try {
+            in = new FileInputStream(checkpointFile);
+            properties.load(in);
+        } catch (IOException e) {
+            log.warn("Unable to read checkpoint " + checkpointFile + ", starting from the beginning: " + e.getMessage());
+            properties.clear();
+        } finally {
+            close(in);
+        }
+        return getRepositoryId() != null && getPosition() != null;
+    }
+
+    /**
+     * The repository being processed when the checkpoint was stored
+     *
+     * @return the repository id, null when no checkpoint
+     */
+    String getRepositoryId() {
+        return properties.getProperty(REPOSITORY_KEY);
+    }
+
+    /**
+     * Position of the last completed group in the repository search result
+     *
+     * @return the position, null when no checkpoint
+     */
+    String getPosition() {
+        return properties.getProperty(POSITION_KEY);
+    }
+
+    /**
+     * Number of elements created until the checkpoint
+     *
+     * @return the count
+     */
+    int getNodeCreateCount() {
+        return getInt(NODE_COUNT_KEY);
+    }
+
+    /**
+     * Number of relations created until the checkpoint
+     *
+     * @return the count
+     */
+    int getRelationCreateCount() {
+        return getInt(RELATION_COUNT_KEY);
+    }
+
+    /**
+     * Write the checkpoint to a temporary file and replace the checkpoint file with it, an abort while writing
+     * leaves the previous checkpoint intact.
+     *
+     * @param repositoryId        the repository being processed
+     * @param position            position of the last completed group
+     * @param nodeCreateCount     elements created until now
+     * @param relationCreateCount relations created until now
+     * @throws IOException Unable to write the file
+     */
+    void store(final String repositoryId, final String position, final int nodeCreateCount, final int relationCreateCount) throws IOException {
+        properties.setProperty(REPOSITORY_KEY, repositoryId);
+        properties.setProperty(POSITION_KEY, position);
+        properties.setProperty(NODE_COUNT_KEY, String.valueOf(nodeCreateCount));
+        properties.setProperty(RELATION_COUNT_KEY, String.valueOf(relationCreateCount));
+        File directory = checkpointFile.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        File tempFile = new File(checkpointFile.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(tempFile);
+        try {
+            properties.store(out, "dependency-analyzer ingestion checkpoint");
+        } finally {
+            out.close();
+        }
+        if (tempFile.renameTo(checkpointFile)) {
+            return;
+        }
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            throw new IOException("Unable to replace " + checkpointFile);
+        }
+        if (!tempFile.renameTo(checkpointFile)) {
+            throw new IOException("Unable to move " + tempFile + " to " + checkpointFile);
+        }
+    }
+
+    /**
+     * Remove the checkpoint, the ingestion is completed
+     */
+    void clear() {
+        properties.clear();
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            log.warn("Unable to remove checkpoint " + checkpointFile);
+        }
+    }
+
+    private int getInt(final String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid checkpoint value for " + key + ": " + value);
+            return 0;
+        }
+    }
+
+    private void close(final InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.debug("Error closing " + checkpointFile + ": " + e.getMessage());
+        }
+    }
+}
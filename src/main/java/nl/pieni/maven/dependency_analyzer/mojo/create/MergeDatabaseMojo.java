@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import nl.pieni.maven.dependency_analyzer.database.DependencyDatabase;
+import nl.pieni.maven.dependency_analyzer.mojo.AbstractAnalyzeMojo;
+import nl.pieni.maven.dependency_analyzer.neo4j.database.DependencyDatabaseImpl;
+import nl.pieni.maven.dependency_analyzer.neo4j.database.DependencyDatabaseMerger;
+import nl.pieni.maven.dependency_analyzer.neo4j.database.DependencyNodeProcessorImpl;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Merges the databases created by sharded runs of the create goal (shardCount, shardIndex) into the
+ * database in databaseDirectory. The shards are opened read-only with the mappedMemory and cacheType settings.
+ *
+ * @goal merge
+ * @requiredProject false
+ */
+public class MergeDatabaseMojo extends AbstractAnalyzeMojo {
+
+    /**
+     * The database directories of the shards.
+     *
+     * @parameter property="shardDirectories"
+     * @required
+     */
+    private List<String> shardDirectories;
+
+    /**
+     * Number of transactions committed as a single batch, see the create goal.
+     *
+     * @parameter property="transactionBatchSize" default-value="1000"
+     */
+    private int transactionBatchSize;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        for (String shardDirectory : shardDirectories) {
+            if (!new File(shardDirectory).isDirectory()) {
+                throw new MojoExecutionException("Shard database " + shardDirectory + " does not exist");
+            }
+        }
+
+        setup();
+        try {
+            getDatabase().setTransactionBatch(transactionBatchSize, 0);
+            DependencyDatabaseMerger merger = new DependencyDatabaseMerger(new DependencyNodeProcessorImpl(getDatabase(), getSearcher(), getLog()), getLog());
+            for (String shardDirectory : shardDirectories) {
+                getLog().info("Merging shard " + shardDirectory);
+                DependencyDatabase<GraphDatabaseService, Node> shard;
+                try {
+                    shard = new DependencyDatabaseImpl(getLog(), shardDirectory, true, storeConfiguration(shardDirectory));
+                } catch (RuntimeException e) {
+                    throw new MojoExecutionException("Unable to open shard database " + shardDirectory
+                            + " read-only, it is in use for writing or not shut down cleanly", e);
+                }
+                try {
+                    merger.merge(shard.getDatabase());
+                } finally {
+                    shard.shutdownDatabase();
+                }
+                getDatabase().flushTransaction();
+            }
+            getLog().info("Inserted " + merger.getNodeCreateCount() + " elements in the Database");
+            getLog().info("Created " + merger.getRelationCreateCount() + " relations in the Database");
+        } finally {
+            tearDown();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import org.apache.maven.model.Dependency;
+import org.sonatype.nexus.index.ArtifactInfo;
+
+import java.util.List;
+
+/**
+ * An artifact found in the index together with its (filtered) dependencies, ready for insertion into the database.
+ */
+class ResolvedArtifact {
+    private final ArtifactInfo source;
+    private final Dependency project;
+    private final List<Dependency> dependencies;
+
+    /**
+     * Default constructor
+     *
+     * @param source       the artifact found in the index
+     * @param project      the artifact
+     * @param dependencies the dependencies of the artifact selected for inclusion
+     */
+    ResolvedArtifact(final ArtifactInfo source, final Dependency project, final List<Dependency> dependencies) {
+        this.source = source;
+        this.project = project;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * The artifact found in the index
+     *
+     * @return the {@link ArtifactInfo}
+     */
+    ArtifactInfo getSource() {
+        return source;
+    }
+
+    /**
+     * The artifact
+     *
+     * @return the artifact as {@link Dependency}
+     */
+    Dependency getProject() {
+        return project;
+    }
+
+    /**
+     * The dependencies of the artifact
+     *
+     * @return List of dependencies
+     */
+    List<Dependency> getDependencies() {
+        return dependencies;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.logging.Log;
+import org.sonatype.nexus.index.ArtifactInfo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * On disk cache of the (filtered) dependencies of the artifacts resolved in previous runs.
+ * Entries are keyed by groupId:artifactId:version and only valid as long as the sha1 from the index matches.
+ * Snapshots and artifacts without a sha1 in the index are never cached.
+ * The cache is discarded when the include filter patterns or the resolution mode differ from the ones used to
+ * create it. Only the entries used or added during the run are stored, the others are dropped.
+ */
+class ResolvedArtifactCache {
+    /** File name of the cache **/
+    static final String CACHE_FILE_NAME = "resolved-artifacts.cache";
+    private static final int FORMAT_VERSION = 1;
+
+    private final File cacheFile;
+    private final String filterKey;
+    private final Log log;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final Set<String> touched = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Default constructor
+     *
+     * @param directory             directory holding the cache file
+     * @param includeFilterPatterns the include patterns used to filter the dependencies
+     * @param resolutionMode        the resolution mode used to resolve the dependencies
+     * @param log                   the logger
+     */
+    ResolvedArtifactCache(final File directory, final List<String> includeFilterPatterns, final String resolutionMode,
+                          final Log log) {
+        this.cacheFile = new File(directory, CACHE_FILE_NAME);
+        this.filterKey = resolutionMode + ":" + includeFilterPatterns;
+        this.log = log;
+    }
+
+    /**
+     * Retrieve the cached dependencies
+     *
+     * @param artifactInfo the artifact
+     * @return the dependencies, null when not cached or outdated
+     */
+    List<Dependency> get(final ArtifactInfo artifactInfo) {
+        if (!isCacheable(artifactInfo)) {
+            return null;
+        }
+        String key = key(artifactInfo);
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.sha1.equals(artifactInfo.sha1)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        touched.add(key);
+        hits.incrementAndGet();
+        return new ArrayList<Dependency>(entry.dependencies);
+    }
+
+    /**
+     * Cache the dependencies of the artifact
+     *
+     * @param artifactInfo the artifact
+     * @param dependencies the filtered dependencies
+     */
+    void put(final ArtifactInfo artifactInfo, final List<Dependency> dependencies) {
+        if (isCacheable(artifactInfo)) {
+            String key = key(artifactInfo);
+            touched.add(key);
+            entries.put(key, new Entry(artifactInfo.sha1, new ArrayList<Dependency>(dependencies)));
+        }
+    }
+
+    /**
+     * Read the cache file, a missing or unreadable file results in an empty cache.
+     */
+    void load() {
+        entries.clear();
+        touched.clear();
+        if (!cacheFile.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            if (in.readInt() != FORMAT_VERSION || !filterKey.equals(in.readUTF())) {
+                log.info("Resolved artifact cache " + cacheFile + " is outdated, ignoring");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                String sha1 = in.readUTF();
+                int dependencyCount = in.readInt();
+                List<Dependency> dependencies = new ArrayList<Dependency>(dependencyCount);
+                for (int j = 0; j < dependencyCount; j++) {
+                    dependencies.add(readDependency(in));
+                }
+                entries.put(key, new Entry(sha1, dependencies));
+            }
+            log.info("Loaded " + entries.size() + " resolved artifacts from " + cacheFile);
+        } catch (IOException e) {
+            log.warn("Unable to read resolved artifact cache " + cacheFile + ", ignoring: " + e.getMessage());
+            entries.clear();
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Write the entries used or added during the run to a temporary file and replace the cache file with it.
+     *
+     * @throws IOException Unable to write the file
+     */
+    void store() throws IOException {
+        File directory = cacheFile.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        Map<String, Entry> stored = new HashMap<String, Entry>();
+        for (String key : touched) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                stored.put(key, entry);
+            }
+        }
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(filterKey);
+            out.writeInt(stored.size());
+            for (Map.Entry<String, Entry> mapEntry : stored.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                out.writeUTF(mapEntry.getKey());
+                out.writeUTF(entry.sha1);
+                out.writeInt(entry.dependencies.size());
+                for (Dependency dependency : entry.dependencies) {
+                    writeDependency(out, dependency);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        replace(tempFile);
+        log.info("Resolved artifact cache: " + hits.get() + " hits, " + misses.get() + " misses, "
+                + stored.size() + " entries stored in " + cacheFile + ", " + (entries.size() - stored.size())
+                + " unused entries dropped");
+    }
+
+    /**
+     * Number of lookups answered from the cache
+     *
+     * @return the hit count
+     */
+    int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of lookups for cacheable artifacts not (validly) present in the cache
+     *
+     * @return the miss count
+     */
+    int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Releases are immutable, only those with a known checksum are cached.
+     *
+     * @param artifactInfo the artifact
+     * @return true when cacheable
+     */
+    private boolean isCacheable(final ArtifactInfo artifactInfo) {
+        return artifactInfo.sha1 != null && artifactInfo.version != null && !artifactInfo.version.endsWith("SNAPSHOT");
+    }
+
+    private String key(final ArtifactInfo artifactInfo) {
+        return artifactInfo.groupId + ":" + artifactInfo.artifactId + ":" + artifactInfo.version;
+    }
+
+    private void writeDependency(final DataOutputStream out, final Dependency dependency) throws IOException {
+        writeString(out, dependency.getGroupId());
+        writeString(out, dependency.getArtifactId());
+        writeString(out, dependency.getVersion());
+        writeString(out, dependency.getType());
+        writeString(out, dependency.getClassifier());
+        writeString(out, dependency.getScope());
+    }
+
+    private Dependency readDependency(final DataInputStream in) throws IOException {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(readString(in));
+        dependency.setArtifactId(readString(in));
+        dependency.setVersion(readString(in));
+        dependency.setType(readString(in));
+        dependency.setClassifier(readString(in));
+        dependency.setScope(readString(in));
+        return dependency;
+    }
+
+    private void writeString(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readString(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Move the written file over the cache file, the rename replaces it in one step where the platform allows.
+     *
+     * @param tempFile the written file
+     * @throws IOException Unable to replace the cache file
+     */
+    private void replace(final File tempFile) throws IOException {
+        if (tempFile.renameTo(cacheFile)) {
+            return;
+        }
+        if (cacheFile.exists() && !cacheFile.delete()) {
+            throw new IOException("Unable to replace " + cacheFile);
+        }
+        if (!tempFile.renameTo(cacheFile)) {
+            throw new IOException("Unable to move " + tempFile + " to " + cacheFile);
+        }
+    }
+
+    private void close(final DataInputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.debug("Error closing " + cacheFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A cached artifact
+     */
+    private static class Entry {
+        private final String sha1;
+        private final List<Dependency> dependencies;
+
+        Entry(final String sha1, final List<Dependency> dependencies) {
+            this.sha1 = sha1;
+            this.dependencies = Collections.unmodifiableList(dependencies);
+        }
+    }
+}
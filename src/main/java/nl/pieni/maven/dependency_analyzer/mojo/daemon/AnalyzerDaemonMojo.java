@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.daemon;
+
+import nl.pieni.maven.dependency_analyzer.daemon.AnalyzerDaemon;
+import nl.pieni.maven.dependency_analyzer.daemon.DaemonClient;
+import nl.pieni.maven.dependency_analyzer.mojo.AbstractAnalyzeMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.IOException;
+
+/**
+ * Runs the analyzer daemon. The database is kept open and the report and export goals (with useDaemon)
+ * are served by the daemon until it is stopped (stopDaemon).
+ *
+ * @goal daemon
+ * @requiredProject false
+ */
+public class AnalyzerDaemonMojo extends AbstractAnalyzeMojo {
+
+    /**
+     * Stop the running daemon instead of starting one.
+     *
+     * @parameter property="stopDaemon" default-value="false"
+     */
+    private boolean stopDaemon;
+
+    /**
+     * {@inheritDoc}
+     * The daemon only reads the database, the create goal and other readers can use it meanwhile.
+     */
+    @Override
+    protected boolean readOnlyDatabase() {
+        return true;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (stopDaemon) {
+            try {
+                new DaemonClient(getDaemonPort()).stop();
+                getLog().info("Analyzer daemon on port " + getDaemonPort() + " stopped");
+            } catch (IOException e) {
+                throw new MojoExecutionException("No analyzer daemon running on port " + getDaemonPort(), e);
+            }
+            return;
+        }
+
+        setup();
+        AnalyzerDaemon daemon = new AnalyzerDaemon(getLog(), getDatabase(), getSearcher());
+        try {
+            daemon.start(getDaemonPort());
+            daemon.awaitStop();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to start the analyzer daemon on port " + getDaemonPort(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            daemon.stop();
+        } finally {
+            tearDown();
+        }
+    }
+}
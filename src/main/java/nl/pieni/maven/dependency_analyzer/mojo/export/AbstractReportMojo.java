@@ -27,6 +27,15 @@ import java.util.StringTokenizer;
  */
 public abstract class AbstractReportMojo extends AbstractAnalyzeMojo {
 
+    /**
+     * {@inheritDoc}
+     * Reports only read the database.
+     */
+    @Override
+    protected boolean readOnlyDatabase() {
+        return true;
+    }
+
     /**
      * Convert the string (groupId:artifactId) to a {@link org.apache.maven.model.Dependency} object.
      * @param reportArtifact The G:A string
@@ -16,8 +16,8 @@
 
 package nl.pieni.maven.dependency_analyzer.mojo.export;
 
+import nl.pieni.maven.dependency_analyzer.daemon.DaemonClient;
 import nl.pieni.maven.dependency_analyzer.neo4j.export.report.DependencyReportImpl;
-import nl.pieni.maven.dependency_analyzer.node.ArtifactNode;
 import nl.pieni.maven.dependency_analyzer.export.report.DependencyReport;
 import nl.pieni.maven.dependency_analyzer.export.log.LogWriter;
 import org.apache.maven.model.Dependency;
@@ -25,6 +25,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -47,26 +48,48 @@ class ArtifactDependencyReportMojo extends AbstractReportMojo {
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        DaemonClient client = getDaemonClient();
+        if (client != null) {
+            reportUsingDaemon(client);
+            return;
+        }
         super.setup();
 
         DependencyReport reporter = new DependencyReportImpl(getSearcher());
         LogWriter logWriter = new LogWriter(getLog());
 
+        List<Dependency> dependencies = new ArrayList<Dependency>();
         for (String reportArtifact : reportArtifacts) {
-            getLog().info("\nReport for artifact: " + reportArtifact);
             Dependency dependency = stringToGaDependency(reportArtifact);
             if (dependency == null){
-                return;
+                break;
             }
+            dependencies.add(dependency);
+        }
 
-            //Find the Node
-            ArtifactNode artifactNode = getSearcher().findArtifactNode(dependency);
-            if (artifactNode == null) {
-                continue;
-            }
+        try {
+            reporter.createReports(dependencies, logWriter);
+        } catch (IOException e) {
+            throw  new MojoExecutionException("Error creating output for reporting", e);
+        }
+    }
 
+    /**
+     * Create the reports using the daemon
+     *
+     * @param client the daemon client
+     * @throws MojoExecutionException error communicating with the daemon
+     */
+    private void reportUsingDaemon(DaemonClient client) throws MojoExecutionException {
+        LogWriter logWriter = new LogWriter(getLog());
+        for (String reportArtifact : reportArtifacts) {
+            getLog().info("\nReport for artifact: " + reportArtifact);
+            Dependency dependency = stringToGaDependency(reportArtifact);
+            if (dependency == null){
+                return;
+            }
             try {
-                reporter.createReport(dependency, logWriter);
+                client.report(dependency.getGroupId(), dependency.getArtifactId(), logWriter);
             } catch (IOException e) {
                 throw  new MojoExecutionException("Error creating output for reporting", e);
             }
@@ -16,6 +16,7 @@
 
 package nl.pieni.maven.dependency_analyzer.mojo.export;
 
+import nl.pieni.maven.dependency_analyzer.daemon.DaemonClient;
 import nl.pieni.maven.dependency_analyzer.dot.DotExporter;
 import nl.pieni.maven.dependency_analyzer.neo4j.export.dot.ShapeDotExporterImpl;
 import nl.pieni.maven.dependency_analyzer.neo4j.export.dot.writer.shape.ShapeDotWriter;
@@ -62,6 +63,11 @@ class DependencyTreeDotExportMojo extends AbstractReportMojo {
     @SuppressWarnings("unchecked")
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        DaemonClient client = getDaemonClient();
+        if (client != null) {
+            exportUsingDaemon(client);
+            return;
+        }
         super.setup();
 
         DotExporter exporter= new ShapeDotExporterImpl(getDatabase(), getLog());
@@ -80,4 +86,29 @@ class DependencyTreeDotExportMojo extends AbstractReportMojo {
             tearDown();
         }
     }
+
+    /**
+     * Export using the daemon
+     *
+     * @param client the daemon client
+     * @throws MojoExecutionException error communicating with the daemon
+     */
+    private void exportUsingDaemon(DaemonClient client) throws MojoExecutionException {
+        Writer osWriter = null;
+        try {
+            osWriter = new OutputStreamWriter(new FileOutputStream(dotFile), "UTF-8");
+            client.exportDot(includeVersions, includeFilterPatterns, osWriter);
+        } catch (IOException e) {
+            getLog().error("Error creating output for reporting");
+            throw new MojoExecutionException("Error creating output for reporting", e);
+        } finally {
+            if (osWriter != null) {
+                try {
+                    osWriter.close();
+                } catch (IOException e) {
+                    getLog().debug("Error closing " + dotFile);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.neo4j.database;
+
+import nl.pieni.maven.dependency_analyzer.database.DependencyNodeProcessor;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.ArtifactRelations;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeProperties;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeType;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.ScopedRelation;
+import nl.pieni.maven.dependency_analyzer.neo4j.util.NodeUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.logging.Log;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.index.lucene.LuceneIndexBatchInserter;
+import org.neo4j.index.lucene.LuceneIndexBatchInserterImpl;
+import org.neo4j.kernel.impl.batchinsert.BatchInserter;
+import org.neo4j.kernel.impl.batchinsert.BatchInserterImpl;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+/**
+ * Processing of Dependency elements for the initial creation of a database.
+ * Uses the non transactional Neo4j batch inserter, the nodes are looked up in memory. The index used by the
+ * {@link DependencyDatabaseSearcherImpl} is created when the processor is shutdown.
+ * Only usable on an empty database that is not opened by a {@link DependencyDatabaseImpl}.
+ */
+public class BatchDependencyNodeProcessorImpl implements DependencyNodeProcessor {
+    private final BatchInserter inserter;
+    private final Log logger;
+    private final Map<String, Long> groupNodes = new HashMap<String, Long>();
+    private final Map<String, Long> artifactNodes = new HashMap<String, Long>();
+    private final Map<String, Long> versionNodes = new HashMap<String, Long>();
+    // relation type to the created relations, see NodeUtils.relationKey
+    private final Map<String, Set<Long>> relations = new HashMap<String, Set<Long>>();
+    private int relationCount = 0;
+
+    /**
+     * Default constructor
+     *
+     * @param dbDirectory the directory in which the DB is created
+     * @param logger      the Logger
+     */
+    public BatchDependencyNodeProcessorImpl(final String dbDirectory, final Log logger) {
+        this.inserter = new BatchInserterImpl(dbDirectory);
+        this.logger = logger;
+        getLog().info("Bulk creating database in " + dbDirectory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int addArtifact(final Dependency dependency) {
+        int nodeCount = 0;
+
+        getLog().info("Adding nodes for artifact: " + dependency);
+
+        nodeCount += insertGroup(dependency.getGroupId());
+
+        String artifactKey = NodeUtils.artifactKey(dependency);
+        Long artifactNode = artifactNodes.get(artifactKey);
+        if (artifactNode == null) {
+            Map<String, Object> properties = new HashMap<String, Object>();
+            properties.put(NodeProperties.NODE_TYPE, NodeType.ArtifactNode.name());
+            setProperty(properties, NodeProperties.ARTIFACT_ID, dependency.getArtifactId());
+            setProperty(properties, NodeProperties.ARTIFACT_TYPE, dependency.getType());
+            artifactNode = inserter.createNode(properties);
+            artifactNodes.put(artifactKey, artifactNode);
+            createRelationship(groupNodes.get(dependency.getGroupId()), artifactNode, ArtifactRelations.has);
+            nodeCount++;
+        }
+
+        String versionKey = NodeUtils.versionKey(dependency);
+        if (!versionNodes.containsKey(versionKey)) {
+            Map<String, Object> properties = new HashMap<String, Object>();
+            properties.put(NodeProperties.NODE_TYPE, NodeType.VersionNode.name());
+            setProperty(properties, NodeProperties.VERSION, dependency.getVersion());
+            long versionNode = inserter.createNode(properties);
+            versionNodes.put(versionKey, versionNode);
+            createRelationship(artifactNode, versionNode, ArtifactRelations.version);
+            nodeCount++;
+        }
+
+        return nodeCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int addRelation(final Dependency sourceDependency, final Dependency targetDependency) {
+        int count = 0;
+        RelationshipType relationType = determineRelationType(targetDependency);
+
+        Long sourceArtifactNode = artifactNodes.get(NodeUtils.artifactKey(sourceDependency));
+        Long targetArtifactNode = artifactNodes.get(NodeUtils.artifactKey(targetDependency));
+        Long sourceVersionNode = versionNodes.get(NodeUtils.versionKey(sourceDependency));
+        Long targetVersionNode = versionNodes.get(NodeUtils.versionKey(targetDependency));
+        if (sourceVersionNode == null || targetVersionNode == null) {
+            throw new IllegalArgumentException("Artifacts not added for relation between " + sourceDependency + " and " + targetDependency);
+        }
+
+        if (createRelationship(sourceArtifactNode, targetArtifactNode, relationType)) {
+            count++;
+        }
+        if (createRelationship(sourceVersionNode, targetVersionNode, ArtifactRelations.depends)) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Create the index and close the database
+     */
+    public void shutdown() {
+        getLog().info("Creating index for " + groupNodes.size() + " groups, " + artifactNodes.size() + " artifacts and " + versionNodes.size() + " versions");
+        LuceneIndexBatchInserter index = new LuceneIndexBatchInserterImpl(inserter);
+        for (Map.Entry<String, Long> entry : groupNodes.entrySet()) {
+            index.index(entry.getValue(), NodeProperties.GROUP_ID, entry.getKey());
+        }
+        for (Map.Entry<String, Long> entry : artifactNodes.entrySet()) {
+            String artifactId = entry.getKey().substring(entry.getKey().indexOf(':') + 1);
+            index.index(entry.getValue(), NodeProperties.ARTIFACT_ID, artifactId);
+            index.index(entry.getValue(), NodeProperties.ARTIFACT_KEY, entry.getKey());
+        }
+        for (Map.Entry<String, Long> entry : versionNodes.entrySet()) {
+            index.index(entry.getValue(), NodeProperties.VERSION_KEY, entry.getKey());
+        }
+        Map<String, Object> referenceProperties = new HashMap<String, Object>();
+        referenceProperties.put(NodeProperties.COMPOSITE_INDEX, Boolean.TRUE);
+        inserter.setNodeProperties(inserter.getReferenceNode(), referenceProperties);
+        index.optimize();
+        index.shutdown();
+        inserter.shutdown();
+        getLog().info("Bulk created " + (groupNodes.size() + artifactNodes.size() + versionNodes.size()) + " nodes and " + relationCount + " relations");
+    }
+
+    /**
+     * Insert the group node and the missing parent group nodes
+     *
+     * @param groupId the groupId
+     * @return number of nodes created
+     */
+    private int insertGroup(final String groupId) {
+        if (groupNodes.containsKey(groupId)) {
+            return 0;
+        }
+        int createCount = 0;
+        long parentNode = inserter.getReferenceNode();
+        String path = "";
+        StringTokenizer stringTokenizer = new StringTokenizer(groupId, ".");
+        while (stringTokenizer.hasMoreTokens()) {
+            path = path + (path.length() != 0 ? "." : "") + stringTokenizer.nextToken();
+            Long node = groupNodes.get(path);
+            if (node == null) {
+                Map<String, Object> properties = new HashMap<String, Object>();
+                properties.put(NodeProperties.NODE_TYPE, NodeType.GroupNode.name());
+                properties.put(NodeProperties.GROUP_ID, path);
+                node = inserter.createNode(properties);
+                groupNodes.put(path, node);
+                createRelationship(parentNode, node, ArtifactRelations.has);
+                createCount++;
+            }
+            parentNode = node;
+        }
+        return createCount;
+    }
+
+    /**
+     * Create a relation when not already present
+     *
+     * @param source the source node
+     * @param target the target node
+     * @param type   the relation
+     * @return true when created
+     */
+    private boolean createRelationship(final long source, final long target, final RelationshipType type) {
+        Set<Long> typeRelations = relations.get(type.name());
+        if (typeRelations == null) {
+            typeRelations = new HashSet<Long>();
+            relations.put(type.name(), typeRelations);
+        }
+        if (!typeRelations.add(NodeUtils.relationKey(source, target))) {
+            return false;
+        }
+        relationCount++;
+        inserter.createRelationship(source, target, type, null);
+        if (getLog().isDebugEnabled()) {
+            getLog().debug("Added " + type + " between " + source + " and " + target);
+        }
+        return true;
+    }
+
+    private void setProperty(final Map<String, Object> properties, final String key, final String value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    /**
+     * Convert the {@link Dependency} scope attribute to a {@link RelationshipType}
+     *
+     * @param dependency the dependency
+     * @return the {@link RelationshipType}
+     */
+    private RelationshipType determineRelationType(final Dependency dependency) {
+        RelationshipType result = ScopedRelation.fromString(dependency.getScope());
+        if (result == null) {
+            throw new IllegalArgumentException("Unable to determine scope for dependency: " + dependency);
+        }
+        return result;
+    }
+
+    /**
+     * Get the logger.
+     *
+     * @return the logger
+     */
+    private Log getLog() {
+        return logger;
+    }
+}
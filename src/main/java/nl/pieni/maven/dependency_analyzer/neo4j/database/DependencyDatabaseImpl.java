@@ -22,6 +22,10 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.kernel.EmbeddedGraphDatabase;
+import org.neo4j.kernel.EmbeddedReadOnlyGraphDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Abstract base class for accessing the GRaph Database
@@ -32,8 +36,14 @@ import org.neo4j.kernel.EmbeddedGraphDatabase;
 public class DependencyDatabaseImpl implements DependencyDatabase<GraphDatabaseService, Node> {
     private final Log LOGGER;
     private final GraphDatabaseService graphDb;
+    private final boolean readOnly;
     private Transaction transaction;
     private int transactionCount = 0;
+    private int batchSize = 1;
+    private long batchTimeout = 0;
+    private int batchCount = 0;
+    private long batchStart;
+    private int rollbackCount = 0;
 
 
     /**
@@ -43,10 +53,38 @@ public class DependencyDatabaseImpl implements DependencyDatabase<GraphDatabaseS
      * @param dbDirectory the directory in which the DB is created
      */
     public DependencyDatabaseImpl(final Log logger, String dbDirectory) {
-        this.LOGGER = logger;
-        this.graphDb = new EmbeddedGraphDatabase(dbDirectory);
+        this(logger, dbDirectory, false);
+    }
 
+    /**
+     * Constructor selecting the open mode. A read-only database does not lock the store, several processes
+     * can read the same directory at once, the store must have been shut down cleanly.
+     *
+     * @param logger      the logger
+     * @param dbDirectory the directory in which the DB is created
+     * @param readOnly    open the database read-only
+     */
+    public DependencyDatabaseImpl(final Log logger, String dbDirectory, final boolean readOnly) {
+        this(logger, dbDirectory, readOnly, new HashMap<String, String>());
+    }
 
+    /**
+     * Constructor selecting the open mode and configuration (see {@link StoreConfiguration}).
+     *
+     * @param logger      the logger
+     * @param dbDirectory the directory in which the DB is created
+     * @param readOnly    open the database read-only
+     * @param config      the Neo4j configuration
+     */
+    public DependencyDatabaseImpl(final Log logger, String dbDirectory, final boolean readOnly, final Map<String, String> config) {
+        this.LOGGER = logger;
+        this.readOnly = readOnly;
+        if (readOnly) {
+            logger.info("Opening database " + dbDirectory + " read-only");
+            this.graphDb = new EmbeddedReadOnlyGraphDatabase(dbDirectory, config);
+        } else {
+            this.graphDb = new EmbeddedGraphDatabase(dbDirectory, config);
+        }
     }
 
     /**
@@ -57,6 +95,22 @@ public class DependencyDatabaseImpl implements DependencyDatabase<GraphDatabaseS
         return graphDb;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRollbackCount() {
+        return rollbackCount;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -79,9 +133,10 @@ public class DependencyDatabaseImpl implements DependencyDatabase<GraphDatabaseS
     @Override
     public void startTransaction() {
 
-        if (this.transactionCount == 0) {
+        if (this.transactionCount == 0 && this.transaction == null) {
             getLOGGER().debug("Starting Transaction");
             this.transaction = getDatabase().beginTx();
+            this.batchStart = System.currentTimeMillis();
         } else {
             if (getLOGGER().isDebugEnabled()) {
                 getLOGGER().debug("Reusing Transaction");
@@ -97,10 +152,13 @@ public class DependencyDatabaseImpl implements DependencyDatabase<GraphDatabaseS
     public void stopTransaction() {
         this.transactionCount--;
         if (this.transactionCount == 0) {
-            this.transaction.success();
-            this.transaction.finish();
-            if (getLOGGER().isDebugEnabled()) {
-                getLOGGER().debug("Closed Transaction");
+            this.batchCount++;
+            if (this.batchCount >= this.batchSize || batchTimedOut()) {
+                commitTransaction();
+            } else {
+                if (getLOGGER().isDebugEnabled()) {
+                    getLOGGER().debug("Not closing transaction (batch " + batchCount + " of " + batchSize + ")");
+                }
             }
         } else {
             if (getLOGGER().isDebugEnabled()) {
@@ -109,6 +167,63 @@ public class DependencyDatabaseImpl implements DependencyDatabase<GraphDatabaseS
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTransactionBatch(final int batchSize, final long batchTimeout) {
+        flushTransaction();
+        this.batchSize = Math.max(batchSize, 1);
+        this.batchTimeout = batchTimeout;
+        if (this.batchSize > 1) {
+            getLOGGER().info("Committing transactions in batches of " + this.batchSize
+                    + (batchTimeout > 0 ? " (or every " + batchTimeout + " ms)" : ""));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flushTransaction() {
+        if (this.transactionCount != 0) {
+            getLOGGER().warn("Unable to flush, transaction count = " + transactionCount);
+            return;
+        }
+        if (this.transaction != null) {
+            commitTransaction();
+        }
+    }
+
+    /**
+     * Is the current batch open for longer than the batch timeout
+     *
+     * @return true when timed out
+     */
+    private boolean batchTimedOut() {
+        return this.batchTimeout > 0 && System.currentTimeMillis() - this.batchStart >= this.batchTimeout;
+    }
+
+    /**
+     * Commit the transaction (batch), a failed commit rolls back the whole batch
+     */
+    private void commitTransaction() {
+        try {
+            this.transaction.success();
+            this.transaction.finish();
+            if (getLOGGER().isDebugEnabled()) {
+                getLOGGER().debug("Closed Transaction (" + batchCount + " batched)");
+            }
+        } catch (RuntimeException e) {
+            this.rollbackCount++;
+            getLOGGER().error("Commit failed, rolled back " + batchCount + " batched transactions: " + e.getMessage());
+            throw e;
+        } finally {
+            this.transaction = null;
+            this.batchCount = 0;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -116,6 +231,8 @@ public class DependencyDatabaseImpl implements DependencyDatabase<GraphDatabaseS
     public void shutdownDatabase() {
         if (transactionCount != 0) {
             getLOGGER().error("Transaction count = " + transactionCount);
+        } else {
+            flushTransaction();
         }
 
         getDatabase().shutdown();
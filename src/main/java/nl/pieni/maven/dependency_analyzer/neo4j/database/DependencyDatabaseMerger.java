@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.neo4j.database;
+
+import nl.pieni.maven.dependency_analyzer.database.DependencyNodeProcessor;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.ArtifactRelations;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeProperties;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeType;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.ScopedRelation;
+import nl.pieni.maven.dependency_analyzer.neo4j.node.ArtifactNodeDecorator;
+import nl.pieni.maven.dependency_analyzer.neo4j.node.VersionNodeDecorator;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.logging.Log;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges (shard) databases into a target database. The nodes are identified by their properties (groupId,
+ * artifactId and version), the target processor creates the nodes and relations not yet present. A relation
+ * between two versions is merged with the scoped relations found between their artifacts, these are collected
+ * once for each source artifact.
+ */
+public class DependencyDatabaseMerger {
+    private final DependencyNodeProcessor processor;
+    private final Log log;
+    private int nodeCreateCount = 0;
+    private int relationCreateCount = 0;
+
+    /**
+     * Default constructor
+     *
+     * @param processor processor of the target database
+     * @param log       the logger
+     */
+    public DependencyDatabaseMerger(final DependencyNodeProcessor processor, final Log log) {
+        this.processor = processor;
+        this.log = log;
+    }
+
+    /**
+     * Merge the source database into the target
+     *
+     * @param source the source database
+     */
+    public void merge(final GraphDatabaseService source) {
+        int versionCount = 0;
+        for (Node node : source.getAllNodes()) {
+            if (isVersionNode(node)) {
+                nodeCreateCount += processor.addArtifact(toDependency(new VersionNodeDecorator(node)));
+                versionCount++;
+            }
+        }
+
+        int relationCount = 0;
+        for (Node node : source.getAllNodes()) {
+            if (!isNodeType(node, NodeType.ArtifactNode)) {
+                continue;
+            }
+            Map<Long, List<ScopedRelation>> scopes = scopedRelations(node);
+            if (scopes.isEmpty()) {
+                continue;
+            }
+            for (Relationship versionRelation : node.getRelationships(ArtifactRelations.version, Direction.OUTGOING)) {
+                Node versionNode = versionRelation.getEndNode();
+                Dependency sourceDependency = toDependency(new VersionNodeDecorator(versionNode));
+                for (Relationship relationship : versionNode.getRelationships(ArtifactRelations.depends, Direction.OUTGOING)) {
+                    VersionNodeDecorator targetVersion = new VersionNodeDecorator(relationship.getOtherNode(versionNode));
+                    ArtifactNodeDecorator targetArtifact = (ArtifactNodeDecorator) targetVersion.getParent();
+                    List<ScopedRelation> targetScopes = scopes.get(targetArtifact.getId());
+                    if (targetScopes == null) {
+                        continue;
+                    }
+                    Dependency targetDependency = toDependency(targetVersion);
+                    for (ScopedRelation scope : targetScopes) {
+                        targetDependency.setScope(scope.name());
+                        relationCreateCount += processor.addRelation(sourceDependency, targetDependency);
+                        relationCount++;
+                    }
+                }
+            }
+        }
+        log.info("Merged " + versionCount + " versions and " + relationCount + " relations");
+    }
+
+    /**
+     * Number of nodes created in the target
+     *
+     * @return the count
+     */
+    public int getNodeCreateCount() {
+        return nodeCreateCount;
+    }
+
+    /**
+     * Number of relations created in the target
+     *
+     * @return the count
+     */
+    public int getRelationCreateCount() {
+        return relationCreateCount;
+    }
+
+    private boolean isVersionNode(final Node node) {
+        return isNodeType(node, NodeType.VersionNode);
+    }
+
+    private boolean isNodeType(final Node node, final NodeType type) {
+        return node.hasProperty(NodeProperties.NODE_TYPE)
+                && type.name().equals(node.getProperty(NodeProperties.NODE_TYPE));
+    }
+
+    /**
+     * The scoped relations of an artifact, by the id of the artifact they point to
+     *
+     * @param artifactNode the artifact
+     * @return the scopes by target artifact id
+     */
+    private Map<Long, List<ScopedRelation>> scopedRelations(final Node artifactNode) {
+        Map<Long, List<ScopedRelation>> scopes = new HashMap<Long, List<ScopedRelation>>();
+        for (Relationship scoped : artifactNode.getRelationships(Direction.OUTGOING)) {
+            ScopedRelation scope = ScopedRelation.fromString(scoped.getType().name());
+            if (scope == null) {
+                continue;
+            }
+            List<ScopedRelation> targetScopes = scopes.get(scoped.getEndNode().getId());
+            if (targetScopes == null) {
+                targetScopes = new ArrayList<ScopedRelation>();
+                scopes.put(scoped.getEndNode().getId(), targetScopes);
+            }
+            targetScopes.add(scope);
+        }
+        return scopes;
+    }
+
+    /**
+     * The dependency identifying the version node
+     *
+     * @param versionNode the node
+     * @return the dependency
+     */
+    private Dependency toDependency(final VersionNodeDecorator versionNode) {
+        ArtifactNodeDecorator artifactNode = (ArtifactNodeDecorator) versionNode.getParent();
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(artifactNode.getParent().getGroupId());
+        dependency.setArtifactId(artifactNode.getArtifactId());
+        dependency.setVersion(versionNode.getVersion());
+        dependency.setType(artifactNode.getType());
+        return dependency;
+    }
+}
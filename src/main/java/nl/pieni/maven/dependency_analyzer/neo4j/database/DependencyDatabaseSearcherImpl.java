@@ -24,9 +24,11 @@ import nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeProperties;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.ArtifactNodeDecorator;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.GroupNodeDecorator;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.VersionNodeDecorator;
+import nl.pieni.maven.dependency_analyzer.neo4j.util.NodeUtils;
 import nl.pieni.maven.dependency_analyzer.node.ArtifactNode;
 import nl.pieni.maven.dependency_analyzer.node.GroupNode;
 import nl.pieni.maven.dependency_analyzer.node.VersionNode;
+import nl.pieni.maven.dependency_analyzer.util.LruCache;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.logging.Log;
 import org.neo4j.graphdb.Direction;
@@ -38,18 +40,37 @@ import org.neo4j.graphdb.StopEvaluator;
 import org.neo4j.graphdb.Traverser;
 import org.neo4j.index.IndexService;
 import org.neo4j.index.lucene.LuceneIndexService;
+import org.neo4j.index.lucene.LuceneReadOnlyIndexService;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
- * Searcher for the database
+ * Searcher for the database.
+ * The artifact and version nodes are found with a single index lookup on their composite keys, a database
+ * created before these keys were introduced is searched through the relations of the group and artifact nodes.
+ * The node id's found are cached per coordinate, the node factories invalidate the coordinates they insert.
  */
 public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearcher<Node> {
 
+    /** Default maximum number of node id's cached per coordinate type **/
+    public static final int DEFAULT_NODE_CACHE_SIZE = 10000;
+
     private final Log LOGGER;
+    private final DependencyDatabase<GraphDatabaseService, Node> database;
+    private final GraphDatabaseService graphDb;
+    private final LruCache<String, Long> groupNodeIds;
+    private final LruCache<String, Long> artifactNodeIds;
+    private final LruCache<String, Long> versionNodeIds;
+    private final LruCache<String, List<Long>> versionListIds;
+    private final boolean compositeIndex;
+    private volatile boolean compositeIndexMarked;
+    private volatile int rollbackCount;
     private IndexService index;
 
     /**
@@ -59,9 +80,33 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
      * @param database the database
      */
     public DependencyDatabaseSearcherImpl(Log LOGGER, DependencyDatabase<GraphDatabaseService, Node> database) {
-        this.LOGGER = LOGGER;
-        this.index = new LuceneIndexService(database.getDatabase());
+        this(LOGGER, database, DEFAULT_NODE_CACHE_SIZE);
+    }
 
+    /**
+     * Constructor specifying the size of the node caches
+     *
+     * @param LOGGER        the logger
+     * @param database      the database
+     * @param nodeCacheSize maximum number of node id's cached per coordinate type, 0 disables the cache
+     */
+    public DependencyDatabaseSearcherImpl(Log LOGGER, DependencyDatabase<GraphDatabaseService, Node> database, final int nodeCacheSize) {
+        this.LOGGER = LOGGER;
+        this.groupNodeIds = new LruCache<String, Long>(nodeCacheSize);
+        this.artifactNodeIds = new LruCache<String, Long>(nodeCacheSize);
+        this.versionNodeIds = new LruCache<String, Long>(nodeCacheSize);
+        this.versionListIds = new LruCache<String, List<Long>>(nodeCacheSize);
+        this.database = database;
+        this.rollbackCount = database.getRollbackCount();
+        this.graphDb = database.getDatabase();
+        this.index = database.isReadOnly() ? new LuceneReadOnlyIndexService(graphDb) : new LuceneIndexService(graphDb);
+        Node referenceNode = graphDb.getReferenceNode();
+        this.compositeIndexMarked = referenceNode.hasProperty(NodeProperties.COMPOSITE_INDEX);
+        //A new database is indexed on the composite keys from the start
+        this.compositeIndex = compositeIndexMarked || !referenceNode.hasRelationship(ArtifactRelations.has, Direction.OUTGOING);
+        if (!compositeIndex) {
+            LOGGER.info("Database created without composite keys, artifacts are searched through the relations");
+        }
     }
 
 
@@ -70,7 +115,27 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
      */
     @Override
     public VersionNode findVersionNode(final Dependency dependency) {
+        String key = NodeUtils.versionKey(dependency);
+        Long nodeId = cachedId(versionNodeIds, key);
+        if (nodeId != null) {
+            return new VersionNodeDecorator(graphDb.getNodeById(nodeId));
+        }
+        VersionNode versionNode = searchVersionNode(dependency);
+        if (versionNode != null) {
+            cache(versionNodeIds, key, ((Node) versionNode).getId());
+        }
+        return versionNode;
+    }
+
+    private VersionNode searchVersionNode(final Dependency dependency) {
+        if (compositeIndex) {
+            Node node = index.getSingleNode(NodeProperties.VERSION_KEY, NodeUtils.versionKey(dependency));
+            return node == null ? null : new VersionNodeDecorator(node);
+        }
         ArtifactNodeDecorator artifactNode = (ArtifactNodeDecorator) findArtifactNode(dependency);
+        if (artifactNode == null) {
+            return null;
+        }
         Traverser traverser = artifactNode.traverse(Traverser.Order.BREADTH_FIRST, StopEvaluator.DEPTH_ONE, ReturnableEvaluator.ALL_BUT_START_NODE, ArtifactRelations.version, Direction.OUTGOING);
         for (Node node : traverser) {
             if (node.getProperty(NodeProperties.VERSION).equals(dependency.getVersion())) {
@@ -88,6 +153,23 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
      */
     @Override
     public ArtifactNode findArtifactNode(final Dependency dependency) {
+        String key = NodeUtils.artifactKey(dependency);
+        Long nodeId = cachedId(artifactNodeIds, key);
+        if (nodeId != null) {
+            return new ArtifactNodeDecorator(graphDb.getNodeById(nodeId));
+        }
+        ArtifactNode artifactNode = searchArtifactNode(dependency);
+        if (artifactNode != null) {
+            cache(artifactNodeIds, key, ((Node) artifactNode).getId());
+        }
+        return artifactNode;
+    }
+
+    private ArtifactNode searchArtifactNode(final Dependency dependency) {
+        if (compositeIndex) {
+            Node node = index.getSingleNode(NodeProperties.ARTIFACT_KEY, NodeUtils.artifactKey(dependency));
+            return node == null ? null : new ArtifactNodeDecorator(node);
+        }
         GroupNodeDecorator groupNode = (GroupNodeDecorator) findGroupNode(dependency);
         if (groupNode == null) {
             LOGGER.error("Unable to find groupNode for " + dependency);
@@ -112,11 +194,16 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
      */
     @Override
     public GroupNode findGroupNode(final Dependency dependency) {
+        Long nodeId = cachedId(groupNodeIds, dependency.getGroupId());
+        if (nodeId != null) {
+            return new GroupNodeDecorator(graphDb.getNodeById(nodeId));
+        }
         String key = NodeProperties.GROUP_ID;
         Node node = index.getSingleNode(key, dependency.getGroupId());
         if (node == null) {
             return null;
         }
+        cache(groupNodeIds, dependency.getGroupId(), node.getId());
         return new GroupNodeDecorator(node, dependency);
     }
 
@@ -125,11 +212,16 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
      */
     @Override
     public GroupNode findGroupNode(final String partialGroupId) {
+        Long nodeId = cachedId(groupNodeIds, partialGroupId);
+        if (nodeId != null) {
+            return new GroupNodeDecorator(graphDb.getNodeById(nodeId));
+        }
         String key = NodeProperties.GROUP_ID;
         Node node = index.getSingleNode(key, partialGroupId);
         if (node == null) {
             return null;
         }
+        cache(groupNodeIds, partialGroupId, node.getId());
         return new GroupNodeDecorator(node);
     }
 
@@ -139,17 +231,58 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
      */
     @Override
     public List<VersionNode> getVersionNodes(Dependency dependency) {
-        List<VersionNode> versionNodes = new ArrayList<VersionNode>();
+        String key = NodeUtils.artifactKey(dependency);
+        List<VersionNode> versionNodes = cachedVersionNodes(key);
+        if (versionNodes != null) {
+            return versionNodes;
+        }
         ArtifactNode artifactNode = findArtifactNode(dependency);
         if (artifactNode == null) {
-            return versionNodes;
+            return new ArrayList<VersionNode>();
         }
+        return versionNodes(key, (ArtifactNodeDecorator) artifactNode);
+    }
+
+    /**
+     * The version nodes of the artifact from the cache
+     *
+     * @param key the artifact key
+     * @return the nodes, null when not cached
+     */
+    private List<VersionNode> cachedVersionNodes(final String key) {
+        List<Long> nodeIds;
+        checkRollback();
+        synchronized (versionListIds) {
+            nodeIds = versionListIds.get(key);
+        }
+        if (nodeIds == null) {
+            return null;
+        }
+        List<VersionNode> versionNodes = new ArrayList<VersionNode>();
+        for (Long nodeId : nodeIds) {
+            versionNodes.add(new VersionNodeDecorator(graphDb.getNodeById(nodeId)));
+        }
+        return versionNodes;
+    }
 
-        ArtifactNodeDecorator node = (ArtifactNodeDecorator) artifactNode;
+    /**
+     * Read the version nodes of the artifact node, the node id's are cached
+     *
+     * @param key  the artifact key
+     * @param node the artifact node
+     * @return the nodes
+     */
+    private List<VersionNode> versionNodes(final String key, final ArtifactNodeDecorator node) {
+        List<VersionNode> versionNodes = new ArrayList<VersionNode>();
+        List<Long> nodeIds = new ArrayList<Long>();
         Iterable<Relationship> versions = node.getRelationships(ArtifactRelations.version, Direction.OUTGOING);
         for (Relationship relationship : versions) {
             Node versionNode = relationship.getOtherNode(node);
             versionNodes.add(new VersionNodeDecorator(versionNode));
+            nodeIds.add(versionNode.getId());
+        }
+        synchronized (versionListIds) {
+            versionListIds.put(key, nodeIds);
         }
 
         return versionNodes;
@@ -161,13 +294,22 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
      */
     @Override
     public Map<ScopedRelation, List<ArtifactNode>> getDependingArtifacts(Dependency dependency) {
-        Map<ScopedRelation, List<ArtifactNode>> artifactNodeMap = new HashMap<ScopedRelation, List<ArtifactNode>>();
-
         ArtifactNodeDecorator artifactNode = (ArtifactNodeDecorator) findArtifactNode(dependency);
         if (artifactNode == null) {
-            return artifactNodeMap;
+            return new HashMap<ScopedRelation, List<ArtifactNode>>();
         }
+        return dependingArtifacts(artifactNode, new HashMap<Long, ArtifactNode>());
+    }
 
+    /**
+     * The artifacts depending on the artifact node
+     *
+     * @param artifactNode the node
+     * @param decorated    the artifact nodes already decorated, shared by the lookups of a batch
+     * @return A separate list for each scope
+     */
+    private Map<ScopedRelation, List<ArtifactNode>> dependingArtifacts(final ArtifactNodeDecorator artifactNode, final Map<Long, ArtifactNode> decorated) {
+        Map<ScopedRelation, List<ArtifactNode>> artifactNodeMap = new HashMap<ScopedRelation, List<ArtifactNode>>();
         ScopedRelation[] relations = ScopedRelation.values();
         for (ScopedRelation relation : relations) {
             List<ArtifactNode> artifactNodes = new ArrayList<ArtifactNode>();
@@ -175,10 +317,14 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
             Iterable<Relationship> scopeRelations = artifactNode.getRelationships(relation, Direction.INCOMING);
             for (Relationship scopeRelation : scopeRelations) {
                 Node scopeNode = scopeRelation.getOtherNode(artifactNode);
-                artifactNodes.add(new ArtifactNodeDecorator(scopeNode));
+                ArtifactNode scopeArtifact = decorated.get(scopeNode.getId());
+                if (scopeArtifact == null) {
+                    scopeArtifact = new ArtifactNodeDecorator(scopeNode);
+                    decorated.put(scopeNode.getId(), scopeArtifact);
+                }
+                artifactNodes.add(scopeArtifact);
             }
         }
-
         return artifactNodeMap;
     }
 
@@ -187,13 +333,22 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
      */
     @Override
     public Map<VersionNode, List<VersionNode>> getVersionDependencies(Dependency dependency) {
-        Map<VersionNode, List<VersionNode>> versionNodeListMap = new HashMap<VersionNode, List<VersionNode>>();
-
         ArtifactNodeDecorator artifactNode = (ArtifactNodeDecorator) findArtifactNode(dependency);
         if (artifactNode == null) {
-            return versionNodeListMap;
+            return new HashMap<VersionNode, List<VersionNode>>();
         }
+        return versionDependencies(artifactNode, new HashMap<Long, VersionNode>());
+    }
 
+    /**
+     * The versions depending on each version of the artifact node
+     *
+     * @param artifactNode the node
+     * @param decorated    the version nodes already decorated, shared by the lookups of a batch
+     * @return List for each version available
+     */
+    private Map<VersionNode, List<VersionNode>> versionDependencies(final ArtifactNodeDecorator artifactNode, final Map<Long, VersionNode> decorated) {
+        Map<VersionNode, List<VersionNode>> versionNodeListMap = new HashMap<VersionNode, List<VersionNode>>();
         Iterable<Relationship> availableVersionRelations = artifactNode.getRelationships(ArtifactRelations.version, Direction.OUTGOING);
 
         for (Relationship relationship : availableVersionRelations) {
@@ -201,16 +356,94 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
             List<VersionNode> versionNodes = new ArrayList<VersionNode>();
             versionNodeListMap.put(versionNode, versionNodes);
 
-
             Iterable<Relationship> versionRelations = versionNode.getRelationships(ArtifactRelations.depends, Direction.INCOMING);
             for (Relationship versionRelation : versionRelations) {
                 Node relationNode = versionRelation.getOtherNode(versionNode);
-                versionNodes.add(new VersionNodeDecorator(relationNode));
+                VersionNode relationVersion = decorated.get(relationNode.getId());
+                if (relationVersion == null) {
+                    relationVersion = new VersionNodeDecorator(relationNode);
+                    decorated.put(relationNode.getId(), relationVersion);
+                }
+                versionNodes.add(relationVersion);
             }
         }
         return versionNodeListMap;
     }
 
+    /**
+     * {@inheritDoc}
+     * The coordinates are looked up in sorted order, duplicates are resolved once.
+     */
+    @Override
+    public Map<String, ArtifactNode> findArtifactNodes(final Collection<Dependency> dependencies) {
+        Map<String, ArtifactNode> artifactNodes = new LinkedHashMap<String, ArtifactNode>();
+        for (Map.Entry<String, Dependency> entry : sortedArtifacts(dependencies).entrySet()) {
+            ArtifactNode artifactNode = findArtifactNode(entry.getValue());
+            if (artifactNode != null) {
+                artifactNodes.put(entry.getKey(), artifactNode);
+            }
+        }
+        return artifactNodes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, List<VersionNode>> getVersionNodes(final Map<String, ArtifactNode> artifactNodes) {
+        Map<String, List<VersionNode>> versionNodes = new LinkedHashMap<String, List<VersionNode>>();
+        for (Map.Entry<String, ArtifactNode> entry : artifactNodes.entrySet()) {
+            List<VersionNode> versions = cachedVersionNodes(entry.getKey());
+            if (versions == null) {
+                versions = versionNodes(entry.getKey(), (ArtifactNodeDecorator) entry.getValue());
+            }
+            versionNodes.put(entry.getKey(), versions);
+        }
+        return versionNodes;
+    }
+
+    /**
+     * {@inheritDoc}
+     * An artifact depending on several of the artifacts is decorated once.
+     */
+    @Override
+    public Map<String, Map<ScopedRelation, List<ArtifactNode>>> getDependingArtifacts(final Map<String, ArtifactNode> artifactNodes) {
+        Map<String, Map<ScopedRelation, List<ArtifactNode>>> result = new LinkedHashMap<String, Map<ScopedRelation, List<ArtifactNode>>>();
+        Map<Long, ArtifactNode> decorated = new HashMap<Long, ArtifactNode>();
+        for (Map.Entry<String, ArtifactNode> entry : artifactNodes.entrySet()) {
+            result.put(entry.getKey(), dependingArtifacts((ArtifactNodeDecorator) entry.getValue(), decorated));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * A version depending on several of the artifacts is decorated once.
+     */
+    @Override
+    public Map<String, Map<VersionNode, List<VersionNode>>> getVersionDependencies(final Map<String, ArtifactNode> artifactNodes) {
+        Map<String, Map<VersionNode, List<VersionNode>>> result = new LinkedHashMap<String, Map<VersionNode, List<VersionNode>>>();
+        Map<Long, VersionNode> decorated = new HashMap<Long, VersionNode>();
+        for (Map.Entry<String, ArtifactNode> entry : artifactNodes.entrySet()) {
+            result.put(entry.getKey(), versionDependencies((ArtifactNodeDecorator) entry.getValue(), decorated));
+        }
+        return result;
+    }
+
+    /**
+     * The dependencies keyed by groupId:artifactId, sorted so the index is read in key order
+     *
+     * @param dependencies the dependencies
+     * @return the sorted dependencies
+     */
+    private Map<String, Dependency> sortedArtifacts(final Collection<Dependency> dependencies) {
+        Map<String, Dependency> sorted = new TreeMap<String, Dependency>();
+        for (Dependency dependency : dependencies) {
+            sorted.put(NodeUtils.artifactKey(dependency), dependency);
+        }
+        return sorted;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -222,6 +455,118 @@ public class DependencyDatabaseSearcherImpl implements DependencyDatabaseSearche
         index.index(node, key, node.getProperty(key));
     }
 
+    /**
+     * {@inheritDoc}
+     * Marks the database as indexed on the composite keys, the caller holds the transaction.
+     */
+    @Override
+    public void indexOnKey(final Node node, final String key, final String value) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Index node: " + node + " on " + key + "=\"" + value + "\"");
+        }
+        index.index(node, key, value);
+        if (compositeIndex && !compositeIndexMarked) {
+            graphDb.getReferenceNode().setProperty(NodeProperties.COMPOSITE_INDEX, Boolean.TRUE);
+            compositeIndexMarked = true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate(final Dependency dependency) {
+        String artifactKey = NodeUtils.artifactKey(dependency);
+        synchronized (groupNodeIds) {
+            groupNodeIds.remove(dependency.getGroupId());
+        }
+        synchronized (artifactNodeIds) {
+            artifactNodeIds.remove(artifactKey);
+        }
+        synchronized (versionNodeIds) {
+            versionNodeIds.remove(NodeUtils.versionKey(dependency));
+        }
+        synchronized (versionListIds) {
+            versionListIds.remove(artifactKey);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getCacheStatistics() {
+        StringBuilder builder = new StringBuilder("Searcher cache: groups ");
+        synchronized (groupNodeIds) {
+            builder.append(groupNodeIds);
+        }
+        builder.append(", artifacts ");
+        synchronized (artifactNodeIds) {
+            builder.append(artifactNodeIds);
+        }
+        builder.append(", versions ");
+        synchronized (versionNodeIds) {
+            builder.append(versionNodeIds);
+        }
+        builder.append(", version lists ");
+        synchronized (versionListIds) {
+            builder.append(versionListIds);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Lookup a node id, the cache is shared by the daemon request threads
+     *
+     * @param cache the cache
+     * @param key   the coordinate
+     * @return the node id, null when not cached
+     */
+    private Long cachedId(final LruCache<String, Long> cache, final String key) {
+        checkRollback();
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * Clear the caches when a batch was rolled back since the last lookup, the cached nodes may no longer exist
+     */
+    private void checkRollback() {
+        int current = database.getRollbackCount();
+        if (current == rollbackCount) {
+            return;
+        }
+        synchronized (groupNodeIds) {
+            groupNodeIds.clear();
+        }
+        synchronized (artifactNodeIds) {
+            artifactNodeIds.clear();
+        }
+        synchronized (versionNodeIds) {
+            versionNodeIds.clear();
+        }
+        synchronized (versionListIds) {
+            versionListIds.clear();
+        }
+        rollbackCount = current;
+    }
+
+    private void cache(final LruCache<String, Long> cache, final String key, final long nodeId) {
+        synchronized (cache) {
+            cache.put(key, nodeId);
+        }
+    }
+
+    /**
+     * Are the artifact and version nodes found using the composite keys
+     *
+     * @return true when the composite keys are used
+     */
+    public boolean isCompositeIndex() {
+        return compositeIndex;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -26,20 +26,37 @@ import nl.pieni.maven.dependency_analyzer.neo4j.node.VersionNodeDecorator;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.factory.ArtifactNodeFactory;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.factory.GroupNodeFactory;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.factory.VersionNodeFactory;
+import nl.pieni.maven.dependency_analyzer.neo4j.util.NodeUtils;
+import nl.pieni.maven.dependency_analyzer.util.LruCache;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.logging.Log;
 import org.neo4j.graphdb.*;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Processing of Dependency elements
  */
 public class DependencyNodeProcessorImpl implements DependencyNodeProcessor {
+    /** Default maximum number of node id's kept per identity map **/
+    public static final int DEFAULT_NODE_CACHE_SIZE = 100000;
+
     private final ArtifactNodeFactory artifactNodeFactory;
     private final GroupNodeFactory groupNodeFactory;
     private final VersionNodeFactory versionNodeFactory;
     private final DependencyDatabase<GraphDatabaseService, Node> database;
     private final DependencyDatabaseSearcher searcher;
     private final Log logger;
+    private final LruCache<String, Long> groupNodeIds;
+    private final LruCache<String, Long> artifactNodeIds;
+    private final LruCache<String, Long> versionNodeIds;
+    private final int nodeCacheSize;
+    // relation type to the target node id's of the most recently used source node id's
+    private final Map<String, LruCache<Long, Set<Long>>> knownRelations = new HashMap<String, LruCache<Long, Set<Long>>>();
+    private int rollbackCount;
 
     /**
      * Default constructor
@@ -48,11 +65,30 @@ public class DependencyNodeProcessorImpl implements DependencyNodeProcessor {
      * @param searcher The searcher
      * @param logger   the Logger
      */
-    @SuppressWarnings("unchecked")
     public DependencyNodeProcessorImpl(DependencyDatabase database, DependencyDatabaseSearcher searcher, final Log logger) {
+        this(database, searcher, logger, DEFAULT_NODE_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor specifying the size of the identity maps (groupId, groupId:artifactId and
+     * groupId:artifactId:version to node id) used to find the nodes inserted. The same number of source nodes
+     * per relation type have their relations kept.
+     *
+     * @param database      the database instance
+     * @param searcher      The searcher
+     * @param logger        the Logger
+     * @param nodeCacheSize maximum number of node id's kept per identity map, 0 disables the maps
+     */
+    @SuppressWarnings("unchecked")
+    public DependencyNodeProcessorImpl(DependencyDatabase database, DependencyDatabaseSearcher searcher, final Log logger, final int nodeCacheSize) {
+        this.groupNodeIds = new LruCache<String, Long>(nodeCacheSize);
+        this.artifactNodeIds = new LruCache<String, Long>(nodeCacheSize);
+        this.versionNodeIds = new LruCache<String, Long>(nodeCacheSize);
+        this.nodeCacheSize = nodeCacheSize;
         this.database = database;
         this.searcher = searcher;
         this.logger = logger;
+        this.rollbackCount = database.getRollbackCount();
         artifactNodeFactory = new ArtifactNodeFactory(database, searcher, logger);
         groupNodeFactory = new GroupNodeFactory(database, searcher, logger);
         versionNodeFactory = new VersionNodeFactory(database, searcher, logger);
@@ -64,14 +100,25 @@ public class DependencyNodeProcessorImpl implements DependencyNodeProcessor {
     @Override
     public int addArtifact(final Dependency dependency) {
         int nodeCount = 0;
+        checkRollback();
 
-        getLog().info("Adding nodes for artifact: " + dependency);
+        if (versionNodeIds.get(NodeUtils.versionKey(dependency)) != null) {
+            return nodeCount;
+        }
 
-        nodeCount += groupNodeFactory.insert(dependency);
+        getLog().info("Adding nodes for artifact: " + dependency);
 
-        nodeCount += artifactNodeFactory.insert(dependency);
+        if (artifactNodeIds.get(NodeUtils.artifactKey(dependency)) == null) {
+            if (groupNodeIds.get(dependency.getGroupId()) == null) {
+                nodeCount += groupNodeFactory.insert(dependency);
+                groupNodeIds.put(dependency.getGroupId(), groupNodeFactory.getNodeId());
+            }
+            nodeCount += artifactNodeFactory.insert(dependency);
+            artifactNodeIds.put(NodeUtils.artifactKey(dependency), artifactNodeFactory.getNodeId());
+        }
 
         nodeCount += versionNodeFactory.insert(dependency);
+        versionNodeIds.put(NodeUtils.versionKey(dependency), versionNodeFactory.getNodeId());
 
         return nodeCount;
     }
@@ -82,8 +129,9 @@ public class DependencyNodeProcessorImpl implements DependencyNodeProcessor {
     @Override
     public int addRelation(final Dependency sourceDependency, final Dependency targetDependency) {
         int count = 0;
-        ArtifactNodeDecorator sourceArtifactNode = (ArtifactNodeDecorator) searcher.findArtifactNode(sourceDependency);
-        ArtifactNodeDecorator targetArtifactNode = (ArtifactNodeDecorator) searcher.findArtifactNode(targetDependency);
+        checkRollback();
+        ArtifactNodeDecorator sourceArtifactNode = findArtifactNode(sourceDependency);
+        ArtifactNodeDecorator targetArtifactNode = findArtifactNode(targetDependency);
 
 
         RelationshipType relationType = determineRelationType(targetDependency);
@@ -91,17 +139,19 @@ public class DependencyNodeProcessorImpl implements DependencyNodeProcessor {
 
         if (!hasDependencyRelation(sourceArtifactNode, targetArtifactNode, relationType)) {
             Relationship relationship = sourceArtifactNode.createRelationshipTo(targetArtifactNode, relationType);
+            knownRelation(sourceArtifactNode, targetArtifactNode, relationType);
             count++;
             if (getLog().isDebugEnabled()) {
                 getLog().debug("Added " + relationship + " between " + sourceArtifactNode + " and " + targetArtifactNode);
             }
         }
 
-        VersionNodeDecorator targetVersionNode = (VersionNodeDecorator) searcher.findVersionNode(targetDependency);
-        VersionNodeDecorator sourceVersionNode = (VersionNodeDecorator) searcher.findVersionNode(sourceDependency);
+        VersionNodeDecorator targetVersionNode = findVersionNode(targetDependency);
+        VersionNodeDecorator sourceVersionNode = findVersionNode(sourceDependency);
         if (!hasDependencyRelation(sourceVersionNode, targetVersionNode, ArtifactRelations.depends)) {
 
             Relationship relationship = sourceVersionNode.createRelationshipTo(targetVersionNode, ArtifactRelations.depends);
+            knownRelation(sourceVersionNode, targetVersionNode, ArtifactRelations.depends);
             count++;
             if (getLog().isDebugEnabled()) {
                 getLog().debug("Added " + relationship + " between " + sourceVersionNode + " and " + targetVersionNode);
@@ -114,7 +164,45 @@ public class DependencyNodeProcessorImpl implements DependencyNodeProcessor {
     }
 
     /**
-     * See of the source node and artifact node have a specific relation
+     * Find the artifact node, using the identity map when possible
+     *
+     * @param dependency the dependency
+     * @return the node
+     */
+    private ArtifactNodeDecorator findArtifactNode(final Dependency dependency) {
+        Long nodeId = artifactNodeIds.get(NodeUtils.artifactKey(dependency));
+        if (nodeId != null) {
+            return new ArtifactNodeDecorator(database.getDatabase().getNodeById(nodeId));
+        }
+        ArtifactNodeDecorator artifactNode = (ArtifactNodeDecorator) searcher.findArtifactNode(dependency);
+        if (artifactNode != null) {
+            artifactNodeIds.put(NodeUtils.artifactKey(dependency), artifactNode.getId());
+        }
+        return artifactNode;
+    }
+
+    /**
+     * Find the version node, using the identity map when possible
+     *
+     * @param dependency the dependency
+     * @return the node
+     */
+    private VersionNodeDecorator findVersionNode(final Dependency dependency) {
+        Long nodeId = versionNodeIds.get(NodeUtils.versionKey(dependency));
+        if (nodeId != null) {
+            return new VersionNodeDecorator(database.getDatabase().getNodeById(nodeId));
+        }
+        VersionNodeDecorator versionNode = (VersionNodeDecorator) searcher.findVersionNode(dependency);
+        if (versionNode != null) {
+            versionNodeIds.put(NodeUtils.versionKey(dependency), versionNode.getId());
+        }
+        return versionNode;
+    }
+
+    /**
+     * See of the source node and artifact node have a specific relation. The relations of a source node are
+     * read from the store once, after that the check is a lookup in the known relations. The relations of
+     * the least recently used source are dropped when more than the node cache size sources are known.
      *
      * @param sourceArtifactNode the source
      * @param targetArtifactNode the target
@@ -122,15 +210,57 @@ public class DependencyNodeProcessorImpl implements DependencyNodeProcessor {
      * @return true when the relation is present
      */
     private boolean hasDependencyRelation(Node sourceArtifactNode, Node targetArtifactNode, RelationshipType type) {
-        Iterable<Relationship> relations = sourceArtifactNode.getRelationships(type, Direction.OUTGOING);
-
-        for (Relationship relation : relations) {
-            Node node = relation.getOtherNode(sourceArtifactNode);
-            if (node.getId() == targetArtifactNode.getId()) {
-                return true;
+        LruCache<Long, Set<Long>> sources = relations(type);
+        Set<Long> targets = sources.get(sourceArtifactNode.getId());
+        if (targets == null) {
+            targets = new HashSet<Long>();
+            Iterable<Relationship> relations = sourceArtifactNode.getRelationships(type, Direction.OUTGOING);
+            for (Relationship relation : relations) {
+                targets.add(relation.getOtherNode(sourceArtifactNode).getId());
             }
+            sources.put(sourceArtifactNode.getId(), targets);
+        }
+        return targets.contains(targetArtifactNode.getId());
+    }
+
+    /**
+     * Record a created relation with the known relations of its source
+     *
+     * @param source the source
+     * @param target the target
+     * @param type   the relation
+     */
+    private void knownRelation(final Node source, final Node target, final RelationshipType type) {
+        Set<Long> targets = relations(type).get(source.getId());
+        if (targets != null) {
+            targets.add(target.getId());
+        }
+    }
+
+    private LruCache<Long, Set<Long>> relations(final RelationshipType type) {
+        LruCache<Long, Set<Long>> relations = knownRelations.get(type.name());
+        if (relations == null) {
+            relations = new LruCache<Long, Set<Long>>(nodeCacheSize);
+            knownRelations.put(type.name(), relations);
+        }
+        return relations;
+    }
+
+    /**
+     * Forget the known relations and node id's when a batched transaction was rolled back since the last call,
+     * the nodes and relations created in that batch no longer exist.
+     */
+    private void checkRollback() {
+        int current = database.getRollbackCount();
+        if (current == rollbackCount) {
+            return;
         }
-        return false;
+        getLog().warn("Transaction batch rolled back, clearing the known nodes and relations");
+        knownRelations.clear();
+        groupNodeIds.clear();
+        artifactNodeIds.clear();
+        versionNodeIds.clear();
+        rollbackCount = current;
     }
 
     /**
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.neo4j.database;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * Configuration of the embedded graph database: the memory mapped regions of the store files and the type of
+ * the object cache. The mapped memory is one of
+ * <ul>
+ * <li>auto: every store file is mapped with room to grow, scaled down to half of the memory not used by the heap</li>
+ * <li>default: the Neo4j defaults</li>
+ * <li>explicit sizes: node=25M,relationship=100M,property=50M,string=100M,array=10M</li>
+ * </ul>
+ */
+public class StoreConfiguration {
+    /** Size the mapped memory from the store files **/
+    public static final String AUTO = "auto";
+    /** Use the Neo4j defaults **/
+    public static final String DEFAULT = "default";
+    /** The object cache types supported **/
+    public static final List<String> CACHE_TYPES = Arrays.asList("soft", "weak", "strong", "none");
+
+    static final String CACHE_TYPE = "cache_type";
+    static final String MAPPED_MEMORY = ".mapped_memory";
+    private static final long MB = 1024 * 1024;
+    private static final String[][] STORES = {
+            {"node", "neostore.nodestore.db"},
+            {"relationship", "neostore.relationshipstore.db"},
+            {"property", "neostore.propertystore.db"},
+            {"string", "neostore.propertystore.db.strings"},
+            {"array", "neostore.propertystore.db.arrays"}
+    };
+
+    private final Log log;
+    private final String dbDirectory;
+
+    /**
+     * Default constructor
+     *
+     * @param log         the logger
+     * @param dbDirectory the directory of the database
+     */
+    public StoreConfiguration(final Log log, final String dbDirectory) {
+        this.log = log;
+        this.dbDirectory = dbDirectory;
+    }
+
+    /**
+     * Create the configuration of the database
+     *
+     * @param mappedMemory auto, default or the explicit sizes
+     * @param cacheType    the object cache type, see {@link #CACHE_TYPES}
+     * @return the configuration
+     * @throws IllegalArgumentException invalid mapped memory or cache type
+     */
+    public Map<String, String> create(final String mappedMemory, final String cacheType) {
+        Map<String, String> config = new LinkedHashMap<String, String>();
+        if (cacheType != null && cacheType.length() != 0) {
+            if (!CACHE_TYPES.contains(cacheType)) {
+                throw new IllegalArgumentException("Invalid cacheType " + cacheType + ", use one of " + CACHE_TYPES);
+            }
+            config.put(CACHE_TYPE, cacheType);
+        }
+
+        Map<String, Long> sizes;
+        if (mappedMemory == null || mappedMemory.length() == 0 || DEFAULT.equals(mappedMemory)) {
+            sizes = new LinkedHashMap<String, Long>();
+        } else if (AUTO.equals(mappedMemory)) {
+            long budget = availableMemory();
+            sizes = autoSize(storeSizes(), budget);
+            log.info("Mapped memory sized for " + (budget / MB) + "M available outside the heap");
+        } else {
+            sizes = parse(mappedMemory);
+        }
+        for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+            config.put(entry.getKey() + MAPPED_MEMORY, (entry.getValue() / MB) + "M");
+        }
+        log.info("Database configuration: " + (config.isEmpty() ? "Neo4j defaults" : config.toString()));
+        return config;
+    }
+
+    /**
+     * Sizes of the store files present
+     *
+     * @return file name to size
+     */
+    Map<String, Long> storeSizes() {
+        Map<String, Long> sizes = new LinkedHashMap<String, Long>();
+        for (String[] store : STORES) {
+            File file = new File(dbDirectory, store[1]);
+            if (file.isFile()) {
+                sizes.put(store[1], file.length());
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Size the mapped regions for the store files, each file gets 10% room to grow (at least 1M), scaled down
+     * when the total exceeds the budget.
+     *
+     * @param storeSizes file name to size
+     * @param budget     the memory available for mapping
+     * @return file name to mapped size, whole megabytes
+     */
+    static Map<String, Long> autoSize(final Map<String, Long> storeSizes, final long budget) {
+        Map<String, Long> sizes = new LinkedHashMap<String, Long>();
+        long total = 0;
+        for (Map.Entry<String, Long> entry : storeSizes.entrySet()) {
+            long size = roundUp(entry.getValue() + entry.getValue() / 10);
+            sizes.put(entry.getKey(), size);
+            total += size;
+        }
+        if (total > budget) {
+            double factor = (double) budget / total;
+            for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+                entry.setValue(Math.max(MB, (long) (entry.getValue() * factor) / MB * MB));
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Parse the explicit sizes, store=size separated by comma's
+     *
+     * @param mappedMemory the sizes, node=25M,relationship=100M
+     * @return file name to size
+     */
+    static Map<String, Long> parse(final String mappedMemory) {
+        Map<String, Long> sizes = new LinkedHashMap<String, Long>();
+        StringTokenizer tokenizer = new StringTokenizer(mappedMemory, ",");
+        while (tokenizer.hasMoreTokens()) {
+            String element = tokenizer.nextToken().trim();
+            int separator = element.indexOf('=');
+            String file = separator < 0 ? null : storeFile(element.substring(0, separator).trim());
+            if (file == null) {
+                throw new IllegalArgumentException("Invalid mappedMemory element " + element + ", use store=size with store one of node, relationship, property, string or array");
+            }
+            sizes.put(file, parseSize(element.substring(separator + 1).trim()));
+        }
+        return sizes;
+    }
+
+    private static String storeFile(final String store) {
+        for (String[] entry : STORES) {
+            if (entry[0].equals(store)) {
+                return entry[1];
+            }
+        }
+        return null;
+    }
+
+    private static long parseSize(final String size) {
+        String value = size.toUpperCase();
+        long multiplier = MB;
+        if (value.endsWith("G")) {
+            multiplier = 1024 * MB;
+            value = value.substring(0, value.length() - 1);
+        } else if (value.endsWith("M")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid mappedMemory size " + size + ", use megabytes (100M) or gigabytes (1G)");
+        }
+    }
+
+    private static long roundUp(final long size) {
+        return Math.max(MB, (size + MB - 1) / MB * MB);
+    }
+
+    /**
+     * Memory available for mapping, half of the physical memory not reserved for the heap. When the physical
+     * memory is unknown, half of the maximum heap.
+     *
+     * @return the memory in bytes
+     */
+    long availableMemory() {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        long physical = physicalMemory();
+        if (physical <= maxHeap) {
+            return maxHeap / 2;
+        }
+        return (physical - maxHeap) / 2;
+    }
+
+    /**
+     * The physical memory, only available on the Sun/Oracle VM
+     *
+     * @return the memory in bytes, -1 when unknown
+     */
+    private long physicalMemory() {
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        try {
+            Class<?> beanClass = Class.forName("com.sun.management.OperatingSystemMXBean");
+            if (beanClass.isInstance(osBean)) {
+                Method method = beanClass.getMethod("getTotalPhysicalMemorySize");
+                return (Long) method.invoke(osBean);
+            }
+        } catch (Exception e) {
+            log.debug("Unable to determine the physical memory: " + e.getMessage());
+        }
+        return -1;
+    }
+}
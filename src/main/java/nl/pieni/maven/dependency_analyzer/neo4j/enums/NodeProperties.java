@@ -31,4 +31,10 @@ public interface NodeProperties {
     static final String ARTIFACT_TYPE = "type";
     /** Node type property see {@link NodeType} **/
     static final String NODE_TYPE = "NodeType";
+    /** Composite index key (groupId:artifactId) of the artifact nodes, only used in the index **/
+    static final String ARTIFACT_KEY = "ga";
+    /** Composite index key (groupId:artifactId:version) of the version nodes, only used in the index **/
+    static final String VERSION_KEY = "gav";
+    /** Reference node property, present when the artifact and version nodes are indexed on the composite keys **/
+    static final String COMPOSITE_INDEX = "compositeIndex";
 }
@@ -18,6 +18,7 @@ package nl.pieni.maven.dependency_analyzer.neo4j.export.report;
 import nl.pieni.maven.dependency_analyzer.database.DependencyDatabaseSearcher;
 import nl.pieni.maven.dependency_analyzer.export.report.DependencyReport;
 import nl.pieni.maven.dependency_analyzer.neo4j.enums.ScopedRelation;
+import nl.pieni.maven.dependency_analyzer.neo4j.util.NodeUtils;
 import nl.pieni.maven.dependency_analyzer.node.ArtifactNode;
 import nl.pieni.maven.dependency_analyzer.node.GroupNode;
 import nl.pieni.maven.dependency_analyzer.node.VersionNode;
@@ -57,7 +58,34 @@ public class DependencyReportImpl implements DependencyReport {
             return;
         }
 
-        List<VersionNode> versions = searcher.getVersionNodes(dependency);
+        writeReport(artifactNode, searcher.getVersionNodes(dependency), searcher.getDependingArtifacts(dependency),
+                searcher.getVersionDependencies(dependency), writer);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void createReports(List<Dependency> dependencies, Writer writer) throws IOException {
+        Map<String, ArtifactNode> artifactNodes = searcher.findArtifactNodes(dependencies);
+        Map<String, List<VersionNode>> versions = searcher.getVersionNodes(artifactNodes);
+        Map<String, Map<ScopedRelation, List<ArtifactNode>>> scopedRelations = searcher.getDependingArtifacts(artifactNodes);
+        Map<String, Map<VersionNode, List<VersionNode>>> versionDependencies = searcher.getVersionDependencies(artifactNodes);
+        for (Dependency dependency : dependencies) {
+            String key = NodeUtils.artifactKey(dependency);
+            writer.write(lineSeperator + "Report for artifact: " + key + lineSeperator);
+            ArtifactNode artifactNode = artifactNodes.get(key);
+            if (artifactNode != null) {
+                writeReport(artifactNode, versions.get(key), scopedRelations.get(key), versionDependencies.get(key), writer);
+            }
+        }
+    }
+
+    /**
+     * Write the report of the artifact
+     */
+    private void writeReport(ArtifactNode artifactNode, List<VersionNode> versions, Map<ScopedRelation, List<ArtifactNode>> scopedRelations,
+                             Map<VersionNode, List<VersionNode>> versionDependencies, Writer writer) throws IOException {
         GroupNode groupNode = artifactNode.getParent();
         writer.write("Report for Artifact: \"" + groupNode.getGroupId() + ":" + artifactNode.getArtifactId() + "\"" + lineSeperator);
         writer.write("Available versions" + lineSeperator);
@@ -65,7 +93,6 @@ public class DependencyReportImpl implements DependencyReport {
             writer.write("\t" + version.getVersion() + lineSeperator);
         }
 
-        Map<ScopedRelation, List<ArtifactNode>> scopedRelations = searcher.getDependingArtifacts(dependency);
         writer.write("Incoming relations" + lineSeperator);
         for (ScopedRelation dependencyScope : scopedRelations.keySet()) {
             writer.write("\tScope: " + dependencyScope + lineSeperator);
@@ -77,7 +104,6 @@ public class DependencyReportImpl implements DependencyReport {
             }
         }
 
-        Map<VersionNode, List<VersionNode>> versionDependencies = searcher.getVersionDependencies(dependency);
         writer.write("Version specific relations" + lineSeperator);
         for (VersionNode parentVersion : versionDependencies.keySet()) {
             writer.write("\t" + parentVersion.getVersion() + lineSeperator);
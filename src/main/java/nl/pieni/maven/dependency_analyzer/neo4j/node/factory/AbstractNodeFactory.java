@@ -31,6 +31,7 @@ public abstract class AbstractNodeFactory<T> {
     final Log LOGGER;
     private final DependencyDatabase<GraphDatabaseService, Node> database;
     private final DependencyDatabaseSearcher<Node> searcher;
+    private long nodeId = -1;
 
     /**
      * Default constructor
@@ -58,6 +59,19 @@ public abstract class AbstractNodeFactory<T> {
         return searcher;
     }
 
+    /**
+     * Id of the node created or found by the last {@link #insert(Dependency)}
+     *
+     * @return the node id, -1 when nothing was inserted
+     */
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    void setNodeId(final long nodeId) {
+        this.nodeId = nodeId;
+    }
+
     /**
      * Create a specific node for insertion into the DB
      *
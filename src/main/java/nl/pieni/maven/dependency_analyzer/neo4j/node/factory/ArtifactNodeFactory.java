@@ -21,6 +21,7 @@ import nl.pieni.maven.dependency_analyzer.database.DependencyDatabaseSearcher;
 import nl.pieni.maven.dependency_analyzer.neo4j.enums.ArtifactRelations;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.ArtifactNodeDecorator;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.GroupNodeDecorator;
+import nl.pieni.maven.dependency_analyzer.neo4j.util.NodeUtils;
 import nl.pieni.maven.dependency_analyzer.node.ArtifactNode;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.logging.Log;
@@ -29,6 +30,7 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
 import static nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeProperties.ARTIFACT_ID;
+import static nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeProperties.ARTIFACT_KEY;
 
 
 /**
@@ -51,6 +53,7 @@ public class ArtifactNodeFactory extends AbstractNodeFactory<ArtifactNode> {
         Node node = getDatabase().createNode();
         ArtifactNode artifactNode = new ArtifactNodeDecorator(node, dependency);
         getSearcher().indexOnProperty(node, ARTIFACT_ID);
+        getSearcher().indexOnKey(node, ARTIFACT_KEY, NodeUtils.artifactKey(dependency));
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Created ArtifactNode: " + artifactNode);
         }
@@ -74,7 +77,9 @@ public class ArtifactNodeFactory extends AbstractNodeFactory<ArtifactNode> {
                 LOGGER.debug("Added " + relationship + " between " + groupNode + " and " + artifactNode);
             }
             getDatabase().stopTransaction();
+            getSearcher().invalidate(dependency);
         }
+        setNodeId(artifactNode.getId());
         return nodeCount;
     }
 }
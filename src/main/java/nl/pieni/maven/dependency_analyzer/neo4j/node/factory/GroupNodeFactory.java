@@ -94,6 +94,9 @@ public class GroupNodeFactory extends AbstractNodeFactory<GroupNode> {
             startNode = nextNode;
         }
         getDatabase().stopTransaction();
+        if (startNode != null) {
+            setNodeId(startNode.getId());
+        }
         return createCount;
     }
 
@@ -107,6 +110,7 @@ public class GroupNodeFactory extends AbstractNodeFactory<GroupNode> {
 
         GroupNodeDecorator node = (GroupNodeDecorator) getSearcher().findGroupNode(dependency);
         if (node != null) {
+            setNodeId(node.getId());
             return nodeCount;
         }
 
@@ -114,10 +118,13 @@ public class GroupNodeFactory extends AbstractNodeFactory<GroupNode> {
 
         if (existingPath.length() == 0) {
             //Insert full path
-            return create(dependency, "");
+            nodeCount = create(dependency, "");
+        } else {
+            //Partial path known
+            nodeCount = create(dependency, existingPath);
         }
-        //Partial path known
-        return create(dependency, existingPath);
+        getSearcher().invalidate(dependency);
+        return nodeCount;
     }
 
     private String findExistingPath(Dependency dependency) {
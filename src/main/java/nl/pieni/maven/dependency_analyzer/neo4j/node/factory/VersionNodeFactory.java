@@ -19,8 +19,10 @@ package nl.pieni.maven.dependency_analyzer.neo4j.node.factory;
 import nl.pieni.maven.dependency_analyzer.database.DependencyDatabase;
 import nl.pieni.maven.dependency_analyzer.database.DependencyDatabaseSearcher;
 import nl.pieni.maven.dependency_analyzer.neo4j.enums.ArtifactRelations;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeProperties;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.ArtifactNodeDecorator;
 import nl.pieni.maven.dependency_analyzer.neo4j.node.VersionNodeDecorator;
+import nl.pieni.maven.dependency_analyzer.neo4j.util.NodeUtils;
 import nl.pieni.maven.dependency_analyzer.node.VersionNode;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.logging.Log;
@@ -45,7 +47,9 @@ public class VersionNodeFactory extends AbstractNodeFactory<VersionNode> {
      */
     @Override
     protected VersionNode create(final Dependency dependency) {
-        VersionNode versionNode = new VersionNodeDecorator(getDatabase().createNode(), dependency);
+        Node node = getDatabase().createNode();
+        VersionNode versionNode = new VersionNodeDecorator(node, dependency);
+        getSearcher().indexOnKey(node, NodeProperties.VERSION_KEY, NodeUtils.versionKey(dependency));
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Created versionNode: " + versionNode);
         }
@@ -70,7 +74,9 @@ public class VersionNodeFactory extends AbstractNodeFactory<VersionNode> {
             }
 
             getDatabase().stopTransaction();
+            getSearcher().invalidate(dependency);
         }
+        setNodeId(versionNode.getId());
         return nodeCount;
     }
 }
@@ -17,6 +17,7 @@
 package nl.pieni.maven.dependency_analyzer.neo4j.util;
 
 import nl.pieni.maven.dependency_analyzer.neo4j.enums.ScopedRelation;
+import org.apache.maven.model.Dependency;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
@@ -55,6 +56,35 @@ public class NodeUtils {
         return "Relationship { Id = " + relation.getId() + " type = " + relation.getType() + "}";
     }
 
+    /**
+     * Composite key of the artifact node
+     * @param dependency the dependency
+     * @return groupId:artifactId
+     */
+    public static String artifactKey(Dependency dependency) {
+        return dependency.getGroupId() + ":" + dependency.getArtifactId();
+    }
+
+    /**
+     * Composite key of the version node
+     * @param dependency the dependency
+     * @return groupId:artifactId:version
+     */
+    public static String versionKey(Dependency dependency) {
+        return artifactKey(dependency) + ":" + dependency.getVersion();
+    }
+
+    /**
+     * Key of a relation between two nodes, node id's stay below 2^32 (the Neo4j 1.x store limit) so both fit
+     * in one long
+     * @param sourceId the source node id
+     * @param targetId the target node id
+     * @return the key
+     */
+    public static long relationKey(long sourceId, long targetId) {
+        return (sourceId << 32) | targetId;
+    }
+
     /**
      * Determine if the relation is a scope one.
      *
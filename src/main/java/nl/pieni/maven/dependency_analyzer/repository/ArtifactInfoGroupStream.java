@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository;
+
+import org.sonatype.nexus.index.ArtifactInfoGroup;
+
+import java.io.IOException;
+
+/**
+ * Search result returning the found artifacts one GA group at a time, only the current group is kept in memory.
+ */
+public interface ArtifactInfoGroupStream {
+    /**
+     * Attribute of the returned artifacts holding the moment (milliseconds) the artifact was added to the index,
+     * absent when the repository has no index
+     */
+    String INDEXED_ATTRIBUTE = "indexed";
+
+    /**
+     * The next group of artifacts with the same groupId and artifactId
+     *
+     * @return the group, null when all groups are returned
+     * @throws IOException error reading the index
+     */
+    ArtifactInfoGroup next() throws IOException;
+
+    /**
+     * Number of artifacts matching the search, a stream searching while it is read returns the artifacts found so far
+     *
+     * @return the hit count
+     */
+    int getTotalHits();
+
+    /**
+     * Release the resources held
+     *
+     * @throws IOException error closing the index
+     */
+    void close() throws IOException;
+}
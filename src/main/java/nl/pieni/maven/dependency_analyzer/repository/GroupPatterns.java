@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Normalization of the groupFilterPatterns. Every pattern is a groupId prefix (a trailing star is optional),
+ * a pattern starting with another pattern selects nothing extra and is dropped. A star inside a pattern
+ * (com.*.billing) is not supported, the repositories are searched on groupId prefix only.
+ */
+public final class GroupPatterns {
+
+    private GroupPatterns() {
+    }
+
+    /**
+     * Convert the patterns to the minimal set of groupId prefixes
+     *
+     * @param groupPatterns the patterns, com.acme, com.acme.billing*
+     * @return the prefixes, sorted, com.acme
+     * @throws IllegalArgumentException a pattern with a star before its end
+     */
+    public static List<String> toPrefixes(final List<String> groupPatterns) {
+        TreeSet<String> sorted = new TreeSet<String>();
+        if (groupPatterns != null) {
+            for (String pattern : groupPatterns) {
+                String prefix = pattern.trim();
+                if (prefix.endsWith("*")) {
+                    prefix = prefix.substring(0, prefix.length() - 1);
+                }
+                if (prefix.indexOf('*') >= 0) {
+                    throw new IllegalArgumentException("Unsupported groupFilterPattern " + pattern + ", only a trailing star is allowed (com.acme or com.acme*)");
+                }
+                sorted.add(prefix);
+            }
+        }
+        //A prefix covering others is sorted directly before them
+        List<String> prefixes = new ArrayList<String>();
+        for (String prefix : sorted) {
+            if (prefixes.isEmpty() || !prefix.startsWith(prefixes.get(prefixes.size() - 1))) {
+                prefixes.add(prefix);
+            }
+        }
+        return prefixes;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.pieni.maven.dependency_analyzer.repository;
+
+import nl.pieni.maven.dependency_analyzer.util.VersionComparator;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.ArtifactInfoGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Selects the latest versions of the artifacts of a GA group. Only the requested number of versions is retained
+ * (in a heap holding the oldest selected version on top), the versions are not sorted as a whole.
+ * Of artifacts with the same version only one is selected, the one without classifier when present, otherwise
+ * the first one.
+ */
+public class LatestVersionSelector {
+    /*
+     * Qualifiers marking a version as not released, matched against the alphabetic parts of the version
+     */
+    private static final Set<String> PRE_RELEASE_QUALIFIERS = new HashSet<String>(Arrays.asList(
+            "snapshot", "alpha", "a", "beta", "b", "milestone", "m", "rc", "cr", "preview", "pre", "ea", "dev"));
+
+    private final int count;
+    private final boolean releasesOnly;
+    private final VersionComparator comparator = new VersionComparator();
+
+    /**
+     * Default constructor
+     *
+     * @param count        maximum number of versions selected, 0 or less selects all versions
+     * @param releasesOnly skip snapshots and pre-release versions (1.0-beta-1, 2.0-RC1)
+     */
+    public LatestVersionSelector(final int count, final boolean releasesOnly) {
+        this.count = count > 0 ? count : Integer.MAX_VALUE;
+        this.releasesOnly = releasesOnly;
+    }
+
+    /**
+     * Select the latest versions
+     *
+     * @param artifactInfos the artifacts of a GA
+     * @return the selected artifacts, oldest version first
+     */
+    public List<ArtifactInfo> select(final Iterable<ArtifactInfo> artifactInfos) {
+        Selection selection = start();
+        for (ArtifactInfo artifactInfo : artifactInfos) {
+            selection.add(artifactInfo);
+        }
+        return selection.getSelected();
+    }
+
+    /**
+     * Select the latest versions of a group
+     *
+     * @param group the artifacts of a GA
+     * @return new group holding the selected artifacts
+     */
+    public ArtifactInfoGroup select(final ArtifactInfoGroup group) {
+        Selection selection = start();
+        for (ArtifactInfo artifactInfo : group.getArtifactInfos()) {
+            selection.add(artifactInfo);
+        }
+        return selection.getGroup(group.getGroupKey());
+    }
+
+    /**
+     * Start the selection of the versions of a single GA, the artifacts are added one at a time
+     *
+     * @return the selection
+     */
+    public Selection start() {
+        return new Selection();
+    }
+
+    /**
+     * The selection of the versions of a single GA in progress
+     */
+    public class Selection {
+        private final PriorityQueue<ArtifactInfo> selected = new PriorityQueue<ArtifactInfo>(11, comparator);
+        private final Map<ComparableVersion, ArtifactInfo> versions = new HashMap<ComparableVersion, ArtifactInfo>();
+
+        private Selection() {
+        }
+
+        /**
+         * Offer an artifact, it is kept when it is (for now) one of the latest versions
+         *
+         * @param artifactInfo the artifact
+         */
+        public void add(final ArtifactInfo artifactInfo) {
+            if (artifactInfo.version == null || (releasesOnly && !isRelease(artifactInfo.version))) {
+                return;
+            }
+            ComparableVersion version = comparator.getComparableVersion(artifactInfo.version);
+            ArtifactInfo previous = versions.get(version);
+            if (previous != null) {
+                if (previous.classifier != null && artifactInfo.classifier == null) {
+                    versions.put(version, artifactInfo);
+                    if (removeSelected(previous)) {
+                        selected.add(artifactInfo);
+                    }
+                }
+                return;
+            }
+            versions.put(version, artifactInfo);
+            if (selected.size() < count) {
+                selected.add(artifactInfo);
+            } else if (comparator.compare(artifactInfo, selected.peek()) > 0) {
+                selected.poll();
+                selected.add(artifactInfo);
+            }
+        }
+
+        /**
+         * Remove an artifact from the selected ones
+         *
+         * @param artifactInfo the artifact
+         * @return true when it was selected
+         */
+        private boolean removeSelected(final ArtifactInfo artifactInfo) {
+            for (Iterator<ArtifactInfo> iterator = selected.iterator(); iterator.hasNext();) {
+                if (iterator.next() == artifactInfo) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The selected artifacts, the selection is empty afterwards
+         *
+         * @return the selected artifacts, oldest version first
+         */
+        public List<ArtifactInfo> getSelected() {
+            List<ArtifactInfo> result = new ArrayList<ArtifactInfo>(selected.size());
+            while (!selected.isEmpty()) {
+                result.add(selected.poll());
+            }
+            versions.clear();
+            return result;
+        }
+
+        /**
+         * The selected artifacts as group, the selection is empty afterwards
+         *
+         * @param groupKey the key of the group
+         * @return the group
+         */
+        public ArtifactInfoGroup getGroup(final String groupKey) {
+            ArtifactInfoGroup group = new ArtifactInfoGroup(groupKey, comparator.groupOrder());
+            for (ArtifactInfo artifactInfo : getSelected()) {
+                group.addArtifactInfo(artifactInfo);
+            }
+            return group;
+        }
+    }
+
+    /**
+     * Is the version a release, not a snapshot and without pre-release qualifier. Versions like 1.2.3.4,
+     * 1.0.Final or 2.0-jdk5 are releases.
+     *
+     * @param version the version
+     * @return true for a release
+     */
+    static boolean isRelease(final String version) {
+        String lower = version.toLowerCase(Locale.ENGLISH);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letter = i < lower.length() && Character.isLetter(lower.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                if (PRE_RELEASE_QUALIFIERS.contains(lower.substring(start, i))) {
+                    return false;
+                }
+                start = -1;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository;
+
+import nl.pieni.maven.dependency_analyzer.util.VersionComparator;
+import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.ArtifactInfoGroup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the streams of several repositories into a single stream of GA groups. An artifact (GAV, classifier and
+ * extension) found in more than one repository is returned once, taken from the stream with the highest precedence.
+ * All streams must return their groups in the order of the index UINFO field (see {@link #position(ArtifactInfoGroup)}).
+ */
+public class MergedArtifactInfoGroupStream implements ArtifactInfoGroupStream {
+    /*
+     * Separator of the elements in the index UINFO field
+     */
+    private static final String UINFO_SEPARATOR = "|";
+
+    private final List<ArtifactInfoGroupStream> streams;
+    private final ArtifactInfoGroup[] heads;
+    private final VersionComparator versionComparator = new VersionComparator();
+    private int duplicateCount = 0;
+
+    /**
+     * Default constructor
+     *
+     * @param streams the streams, in order of precedence
+     * @throws IOException error reading the streams
+     */
+    public MergedArtifactInfoGroupStream(final List<ArtifactInfoGroupStream> streams) throws IOException {
+        this.streams = new ArrayList<ArtifactInfoGroupStream>(streams);
+        this.heads = new ArtifactInfoGroup[streams.size()];
+        for (int i = 0; i < heads.length; i++) {
+            heads[i] = this.streams.get(i).next();
+        }
+    }
+
+    /**
+     * Position of the group in the index, groups are ordered on groupId|artifactId|
+     *
+     * @param artifactInfoGroup the group
+     * @return the position
+     */
+    public static String position(final ArtifactInfoGroup artifactInfoGroup) {
+        ArtifactInfo artifactInfo = artifactInfoGroup.getArtifactInfos().iterator().next();
+        return artifactInfo.groupId + UINFO_SEPARATOR + artifactInfo.artifactId + UINFO_SEPARATOR;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public ArtifactInfoGroup next() throws IOException {
+        String lowest = null;
+        for (ArtifactInfoGroup head : heads) {
+            if (head != null && (lowest == null || position(head).compareTo(lowest) < 0)) {
+                lowest = position(head);
+            }
+        }
+        if (lowest == null) {
+            return null;
+        }
+
+        ArtifactInfoGroup merged = null;
+        Map<String, ArtifactInfo> artifacts = new LinkedHashMap<String, ArtifactInfo>();
+        for (int i = 0; i < heads.length; i++) {
+            if (heads[i] == null || !position(heads[i]).equals(lowest)) {
+                continue;
+            }
+            if (merged == null) {
+                merged = new ArtifactInfoGroup(heads[i].getGroupKey(), versionComparator.groupOrder());
+            }
+            for (ArtifactInfo artifactInfo : heads[i].getArtifactInfos()) {
+                String key = artifactInfo.version + UINFO_SEPARATOR + artifactInfo.classifier + UINFO_SEPARATOR + artifactInfo.fextension;
+                if (artifacts.containsKey(key)) {
+                    duplicateCount++;
+                } else {
+                    artifacts.put(key, artifactInfo);
+                }
+            }
+            heads[i] = streams.get(i).next();
+        }
+        for (ArtifactInfo artifactInfo : artifacts.values()) {
+            merged.addArtifactInfo(artifactInfo);
+        }
+        return merged;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public int getTotalHits() {
+        int totalHits = 0;
+        for (ArtifactInfoGroupStream stream : streams) {
+            totalHits += stream.getTotalHits();
+        }
+        return totalHits;
+    }
+
+    /**
+     * Number of artifacts dropped because they were already returned from a stream with higher precedence
+     *
+     * @return the count
+     */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (ArtifactInfoGroupStream stream : streams) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -12,6 +12,15 @@ import java.util.Map;
  * Interface to the repository searcher
  */
 public interface RepositorySearcher {
+    /**
+     * Register the repositories and update their indexes, the indexes are updated concurrently.
+     * Searching a repository updated this way does not update its index again.
+     * @param repositories the repos
+     * @throws IOException error communicating
+     * @throws UnsupportedExistingLuceneIndexException should no happen
+     */
+    void updateIndexes(List<ArtifactRepository> repositories) throws IOException, UnsupportedExistingLuceneIndexException;
+
     /**
      * Search the repo for  the patters provided
      * @param groupPatterns the pattern
@@ -22,4 +31,27 @@ public interface RepositorySearcher {
      * @throws UnsupportedExistingLuceneIndexException should no happen
      */
     Map<String, ArtifactInfoGroup> searchIndexGrouped(List<String> groupPatterns, ArtifactRepository repository, List<String> packaging) throws IOException, UnsupportedExistingLuceneIndexException;
+
+    /**
+     * Search the repo for the patterns provided, returning the groups one at a time. Unlike
+     * {@link #searchIndexGrouped(java.util.List, org.apache.maven.artifact.repository.ArtifactRepository, java.util.List)}
+     * the found artifacts are not all held in memory.
+     * @param groupPatterns the pattern
+     * @param repository the repo
+     * @param packaging the packaging
+     * @param versionSelector selection of the versions returned per group, null for all versions
+     * @return Found artifacts grouped per GA keys, to be closed after use
+     * @throws IOException error communicating
+     * @throws UnsupportedExistingLuceneIndexException should no happen
+     */
+    ArtifactInfoGroupStream searchIndexStream(List<String> groupPatterns, ArtifactRepository repository, List<String> packaging, LatestVersionSelector versionSelector) throws IOException, UnsupportedExistingLuceneIndexException;
+
+    /**
+     * Timestamp of the index of the repository as searched by the last
+     * {@link #searchIndexStream(java.util.List, org.apache.maven.artifact.repository.ArtifactRepository, java.util.List, LatestVersionSelector)},
+     * the artifacts added after this moment are not returned.
+     * @param repository the repo
+     * @return the timestamp, 0 when unknown
+     */
+    long getIndexTimestamp(ArtifactRepository repository);
 }
@@ -0,0 +1,449 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.filesystem;
+
+import nl.pieni.maven.dependency_analyzer.repository.ArtifactInfoGroupStream;
+import nl.pieni.maven.dependency_analyzer.repository.GroupPatterns;
+import nl.pieni.maven.dependency_analyzer.repository.LatestVersionSelector;
+import nl.pieni.maven.dependency_analyzer.repository.MergedArtifactInfoGroupStream;
+import nl.pieni.maven.dependency_analyzer.repository.RepositorySearcher;
+import nl.pieni.maven.dependency_analyzer.repository.pom.PomReaderException;
+import nl.pieni.maven.dependency_analyzer.repository.pom.StreamingPomReader;
+import nl.pieni.maven.dependency_analyzer.util.VersionComparator;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.logging.Log;
+import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.ArtifactInfoGroup;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches a repository on the local file system (a mirror, reachable with a file:// url) by walking the
+ * directory tree, no index is downloaded. Only the packaging of the pom files is read. The top level directories
+ * are scanned concurrently while the groups are read. A snapshot version directory without a plain pom uses its latest timestamped pom
+ * (artifactId-1.0-yyyyMMdd.HHmmss-N.pom).
+ */
+public class FileSystemRepositorySearcher implements RepositorySearcher {
+    private static final String SNAPSHOT = "-SNAPSHOT";
+    private static final List<String> EXTENSIONS = Arrays.asList("jar", "war", "ear", "rar", "pom");
+    private static final String POM_EXTENSION = ".pom";
+    private static final Pattern TIMESTAMP_POM = Pattern.compile("(\\d{8}\\.\\d{6})-(\\d+)\\.pom");
+
+    private final Log log;
+    private final boolean allowSnapshots;
+    private final int scanThreads;
+    private final StreamingPomReader reader = new StreamingPomReader();
+    private final VersionComparator versionComparator = new VersionComparator();
+    private final Map<String, Long> scanTimestamps = new HashMap<String, Long>();
+
+    /**
+     * Default constructor
+     *
+     * @param log            logger
+     * @param allowSnapshots snapshots allowed
+     * @param scanThreads    number of top level directories scanned concurrently
+     */
+    public FileSystemRepositorySearcher(final Log log, final boolean allowSnapshots, final int scanThreads) {
+        this.log = log;
+        this.allowSnapshots = allowSnapshots;
+        this.scanThreads = Math.max(1, scanThreads);
+    }
+
+    /**
+     * The moment the last scan of the repository started, the artifacts carry the lastModified of their pom file
+     *
+     * @param repository the repo
+     * @return the timestamp, 0 when not scanned
+     */
+    @Override
+    public long getIndexTimestamp(final ArtifactRepository repository) {
+        Long timestamp = scanTimestamps.get(repository.getId());
+        return timestamp == null ? 0 : timestamp;
+    }
+
+    /**
+     * No indexes used, nothing to update
+     *
+     * @param repositories the repos
+     */
+    @Override
+    public void updateIndexes(final List<ArtifactRepository> repositories) {
+        log.info("Searching the file system of the repositories, no indexes updated");
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public Map<String, ArtifactInfoGroup> searchIndexGrouped(final List<String> groupPatterns, final ArtifactRepository repository, final List<String> packaging) throws IOException {
+        Map<String, ArtifactInfoGroup> result = new LinkedHashMap<String, ArtifactInfoGroup>();
+        ArtifactInfoGroupStream stream = searchIndexStream(groupPatterns, repository, packaging, null);
+        try {
+            ArtifactInfoGroup group;
+            while ((group = stream.next()) != null) {
+                result.put(group.getGroupKey(), group);
+            }
+        } finally {
+            stream.close();
+        }
+        return result;
+    }
+
+    /**
+     * The top level directories are scanned in sorted order while the groups are read, only the groups of the
+     * directories being scanned are kept in memory. The total hits are the artifacts found so far.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public ArtifactInfoGroupStream searchIndexStream(final List<String> groupPatterns, final ArtifactRepository repository, final List<String> packaging, final LatestVersionSelector versionSelector) throws IOException {
+        File baseDirectory = new File(repository.getBasedir());
+        if (!baseDirectory.isDirectory()) {
+            throw new IOException("Repository " + repository.getId() + " is not a directory on the file system: " + repository.getUrl());
+        }
+        scanTimestamps.put(repository.getId(), System.currentTimeMillis());
+        log.info("Scanning repository " + repository.getId() + " in " + baseDirectory);
+        return new DirectoryScanStream(baseDirectory, repository.getId(), GroupPatterns.toPrefixes(groupPatterns), packaging, versionSelector);
+    }
+
+    /**
+     * Returns the groups of the repository in position order while scanning the top level directories. All positions
+     * of the groups in a top level directory start with its name, so a group is returned once no directory left
+     * to scan has a name before its position. The next top level directories are scanned concurrently.
+     */
+    private class DirectoryScanStream implements ArtifactInfoGroupStream {
+        private final File baseDirectory;
+        private final String repositoryId;
+        private final List<String> prefixes;
+        private final List<String> packaging;
+        private final LatestVersionSelector versionSelector;
+        private final List<File> directories;
+        private final ExecutorService executor = Executors.newFixedThreadPool(scanThreads);
+        private final LinkedList<Future<List<ArtifactInfo>>> scans = new LinkedList<Future<List<ArtifactInfo>>>();
+        private final TreeMap<String, ArtifactInfoGroup> pending = new TreeMap<String, ArtifactInfoGroup>();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final long start = System.currentTimeMillis();
+        private int submitted = 0;
+        private int collected = 0;
+        private int hits = 0;
+        private boolean logged = false;
+
+        DirectoryScanStream(final File baseDirectory, final String repositoryId, final List<String> prefixes, final List<String> packaging, final LatestVersionSelector versionSelector) {
+            this.baseDirectory = baseDirectory;
+            this.repositoryId = repositoryId;
+            this.prefixes = prefixes;
+            this.packaging = packaging;
+            this.versionSelector = versionSelector;
+            this.directories = listDirectories(baseDirectory);
+            submitScans();
+        }
+
+        @Override
+        public ArtifactInfoGroup next() throws IOException {
+            while (true) {
+                String nextDirectory = collected < directories.size() ? directories.get(collected).getName() : null;
+                if (!pending.isEmpty() && (nextDirectory == null || pending.firstKey().compareTo(nextDirectory) < 0)) {
+                    ArtifactInfoGroup group = pending.pollFirstEntry().getValue();
+                    return versionSelector == null ? group : versionSelector.select(group);
+                }
+                if (nextDirectory == null) {
+                    logSummary();
+                    return null;
+                }
+                collect(scans.removeFirst());
+                submitScans();
+            }
+        }
+
+        @Override
+        public int getTotalHits() {
+            return hits;
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+            pending.clear();
+        }
+
+        /**
+         * Keep the scan of the next top level directories running
+         */
+        private void submitScans() {
+            while (submitted < directories.size() && submitted < collected + scanThreads) {
+                final File topLevel = directories.get(submitted++);
+                scans.add(executor.submit(new Callable<List<ArtifactInfo>>() {
+                    @Override
+                    public List<ArtifactInfo> call() {
+                        List<ArtifactInfo> found = new ArrayList<ArtifactInfo>();
+                        scanDirectory(topLevel, topLevel.getName(), repositoryId, prefixes, packaging, found, skipped);
+                        return found;
+                    }
+                }));
+            }
+        }
+
+        /**
+         * Add the artifacts of a scanned top level directory to the pending groups
+         */
+        private void collect(final Future<List<ArtifactInfo>> scan) throws IOException {
+            List<ArtifactInfo> found;
+            try {
+                found = scan.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while scanning " + baseDirectory);
+            } catch (ExecutionException e) {
+                throw new IOException("Error scanning " + baseDirectory + ": " + e.getCause().getMessage());
+            }
+            collected++;
+            for (ArtifactInfo artifactInfo : found) {
+                ArtifactInfoGroup group = new ArtifactInfoGroup(artifactInfo.groupId + " : " + artifactInfo.artifactId, versionComparator.groupOrder());
+                group.addArtifactInfo(artifactInfo);
+                String position = MergedArtifactInfoGroupStream.position(group);
+                if (pending.containsKey(position)) {
+                    pending.get(position).addArtifactInfo(artifactInfo);
+                } else {
+                    pending.put(position, group);
+                }
+                hits++;
+            }
+        }
+
+        private void logSummary() {
+            if (logged) {
+                return;
+            }
+            logged = true;
+            log.info("Scan resulted in: " + hits + " hits in " + (System.currentTimeMillis() - start) + " ms");
+            if (skipped.get() > 0) {
+                log.warn("Skipped " + skipped.get() + " unreadable pom files in repository " + repositoryId);
+            }
+        }
+    }
+
+    /**
+     * Scan a directory, a directory holding a pom named after its parent (artifactId) and itself (version)
+     * is a version directory.
+     *
+     * @param directory    the directory
+     * @param path         the path relative to the repository, separated by dots
+     * @param repositoryId the repository
+     * @param prefixes     the groupId prefixes searched for
+     * @param packaging    the packaging searched for
+     * @param found        the artifacts found
+     * @param skipped      counter of the unreadable pom files
+     */
+    private void scanDirectory(final File directory, final String path, final String repositoryId, final List<String> prefixes, final List<String> packaging, final List<ArtifactInfo> found, final AtomicInteger skipped) {
+        if (!isCandidate(path, prefixes)) {
+            return;
+        }
+        for (File child : listDirectories(directory)) {
+            File pomFile = findPomFile(child, directory.getName(), child.getName());
+            if (pomFile != null) {
+                int separator = path.lastIndexOf('.');
+                if (separator > 0) {
+                    String groupId = path.substring(0, separator);
+                    ArtifactInfo artifactInfo = createArtifactInfo(pomFile, repositoryId, groupId, directory.getName(), child.getName(), packaging, skipped);
+                    if (artifactInfo != null && matches(groupId, prefixes)) {
+                        found.add(artifactInfo);
+                    }
+                }
+            } else {
+                scanDirectory(child, path + "." + child.getName(), repositoryId, prefixes, packaging, found, skipped);
+            }
+        }
+    }
+
+    /**
+     * The pom file of a version directory. For a snapshot without artifactId-version.pom the latest timestamped pom
+     * is used.
+     *
+     * @param directory  the (possible) version directory
+     * @param artifactId the name of the parent directory
+     * @param version    the name of the directory
+     * @return the pom file, null when the directory is not a version directory
+     */
+    private File findPomFile(final File directory, final String artifactId, final String version) {
+        File pomFile = new File(directory, artifactId + "-" + version + POM_EXTENSION);
+        if (pomFile.isFile()) {
+            return pomFile;
+        }
+        if (!version.endsWith(SNAPSHOT)) {
+            return null;
+        }
+        String baseVersion = version.substring(0, version.length() - SNAPSHOT.length());
+        String prefix = artifactId + "-" + baseVersion + "-";
+        File latest = null;
+        String latestTimestamp = null;
+        int latestBuild = -1;
+        String[] names = directory.list();
+        if (names == null) {
+            return null;
+        }
+        for (String name : names) {
+            if (!name.startsWith(prefix)) {
+                continue;
+            }
+            Matcher matcher = TIMESTAMP_POM.matcher(name.substring(prefix.length()));
+            if (!matcher.matches()) {
+                continue;
+            }
+            String timestamp = matcher.group(1);
+            int build = Integer.parseInt(matcher.group(2));
+            int compare = latestTimestamp == null ? 1 : timestamp.compareTo(latestTimestamp);
+            if (compare > 0 || (compare == 0 && build > latestBuild)) {
+                latest = new File(directory, name);
+                latestTimestamp = timestamp;
+                latestBuild = build;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Create the artifact for a pom file
+     *
+     * @return the artifact, null when not selected or the pom is unreadable
+     */
+    private ArtifactInfo createArtifactInfo(final File pomFile, final String repositoryId, final String groupId, final String artifactId, final String version, final List<String> packaging, final AtomicInteger skipped) {
+        if (!allowSnapshots && version.endsWith(SNAPSHOT)) {
+            return null;
+        }
+        String pomPackaging;
+        try {
+            pomPackaging = reader.readPackaging(pomFile);
+        } catch (PomReaderException e) {
+            log.warn("Skipping " + pomFile + ": " + e.getMessage());
+            skipped.incrementAndGet();
+            return null;
+        }
+        if (pomPackaging == null) {
+            pomPackaging = "jar";
+        }
+        if (packaging != null && !packaging.isEmpty() && !packaging.contains(pomPackaging)) {
+            return null;
+        }
+        ArtifactInfo artifactInfo = new ArtifactInfo(repositoryId, groupId, artifactId, version, null);
+        artifactInfo.packaging = pomPackaging;
+        artifactInfo.fextension = EXTENSIONS.contains(pomPackaging) ? pomPackaging : "jar";
+        artifactInfo.lastModified = pomFile.lastModified();
+        String baseName = pomFile.getName().substring(0, pomFile.getName().length() - POM_EXTENSION.length());
+        artifactInfo.sha1 = readSha1(new File(pomFile.getParentFile(), baseName + "." + artifactInfo.fextension + ".sha1"));
+        return artifactInfo;
+    }
+
+    /**
+     * Read the checksum of the artifact
+     *
+     * @param sha1File the checksum file
+     * @return the checksum, null when not available
+     */
+    private String readSha1(final File sha1File) {
+        if (!sha1File.isFile()) {
+            return null;
+        }
+        BufferedReader in = null;
+        try {
+            in = new BufferedReader(new FileReader(sha1File));
+            String line = in.readLine();
+            if (line == null) {
+                return null;
+            }
+            line = line.trim();
+            int space = line.indexOf(' ');
+            return space > 0 ? line.substring(0, space) : line;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    //Nothing to be done
+                }
+            }
+        }
+    }
+
+    /**
+     * Can the directory contain groups matching the prefixes
+     */
+    private boolean isCandidate(final String path, final List<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix) || prefix.startsWith(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Does the groupId match one of the prefixes
+     */
+    private boolean matches(final String groupId, final List<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (groupId.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The (not hidden) sub directories, sorted on name
+     */
+    private List<File> listDirectories(final File directory) {
+        List<File> directories = new ArrayList<File>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return directories;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory() && !file.getName().startsWith(".")) {
+                directories.add(file);
+            }
+        }
+        return directories;
+    }
+}
@@ -26,12 +26,15 @@ import org.apache.maven.wagon.events.TransferListener;
  */
 public class RepositoryTransferListener implements TransferListener {
     private long timestamp;
+    private long startTime;
     private long transfer;
-    private long progress_block;
+    private long totalSize;
     private long lastSizeReport = 0;
     private static final long SIZE_1M = 1024 * 1024;
+    private static final long SIZE_1K = 1024;
 
     private final org.apache.maven.plugin.logging.Log LOG;
+    private final String prefix;
 
     /**
      * Default constructor
@@ -39,7 +42,18 @@ public class RepositoryTransferListener implements TransferListener {
      * @param logger stream to write output to
      */
     public RepositoryTransferListener(final Log logger) {
+        this(logger, null);
+    }
+
+    /**
+     * Constructor for the transfers of a repository, the messages are prefixed with the repository id
+     *
+     * @param logger       stream to write output to
+     * @param repositoryId the repository
+     */
+    public RepositoryTransferListener(final Log logger, final String repositoryId) {
         this.LOG = logger;
+        this.prefix = repositoryId == null ? "" : "[" + repositoryId + "] ";
     }
 
     /**
@@ -56,19 +70,20 @@ public class RepositoryTransferListener implements TransferListener {
     @Override
     public void transferStarted( TransferEvent transferEvent) {
         timestamp = transferEvent.getTimestamp();
-        long totalSize;
+        startTime = currentTimeMillis();
         this.transfer = 0;
-        this.progress_block = 0;
-        LOG.info("transferStarted");
+        this.totalSize = -1;
+        this.lastSizeReport = 0;
+        LOG.info(prefix + "transferStarted");
         if ((transferEvent.getEventType() == TransferEvent.TRANSFER_STARTED) /* 1 */
                 &&
                 (transferEvent.getRequestType() == TransferEvent.REQUEST_GET) /* 5 */) {
             final String message = "Downloading: " + transferEvent.getResource().getName() + " to "
                     + transferEvent.getLocalFile().toString();
-            LOG.info(message);
+            LOG.info(prefix + message);
             totalSize = transferEvent.getResource().getContentLength();
-            if (totalSize != -1) {
-                LOG.info("Start download of " + totalSize + " bytes");
+            if (totalSize > 0) {
+                LOG.info(prefix + "Start download of " + totalSize + " bytes");
             }
         }
     }
@@ -79,11 +94,19 @@ public class RepositoryTransferListener implements TransferListener {
      */
     @Override
     public void transferProgress(TransferEvent transferEvent,  byte[] buffer, int length) {
-        transfer += buffer.length;
-        progress_block += buffer.length;
+        transfer += length;
         //Report each Mb
         if ((transfer / SIZE_1M) != this.lastSizeReport) {
-            LOG.info("Transferred " + transfer / SIZE_1M + "Mb (" + transfer + " bytes)");
+            StringBuilder message = new StringBuilder(prefix);
+            message.append("Transferred ").append(transfer / SIZE_1M).append("Mb (").append(transfer).append(" bytes)");
+            long rate = getBytesPerSecond();
+            if (rate > 0) {
+                message.append(", ").append(rate / SIZE_1K).append(" Kb/s");
+                if (totalSize > transfer) {
+                    message.append(", ETA ").append((totalSize - transfer) / rate).append(" seconds");
+                }
+            }
+            LOG.info(message.toString());
             this.lastSizeReport = transfer / SIZE_1M;
         }
     }
@@ -97,7 +120,11 @@ public class RepositoryTransferListener implements TransferListener {
 
         final String message = "Transfer finished. " + transfer / SIZE_1M + "Mb (" + transfer + " bytes) copied in " + duration + " seconds";
 
-        LOG.info(message);
+        LOG.info(prefix + message);
+        long rate = getBytesPerSecond();
+        if (rate > 0) {
+            LOG.info(prefix + "Average transfer rate " + rate / SIZE_1K + " Kb/s");
+        }
     }
 
     /**
@@ -105,7 +132,7 @@ public class RepositoryTransferListener implements TransferListener {
      */
     @Override
     public void transferError( TransferEvent transferEvent) {
-        LOG.info("Transfer error: " + transferEvent.getException());
+        LOG.info(prefix + "Transfer error: " + transferEvent.getException());
     }
 
     /**
@@ -113,6 +140,37 @@ public class RepositoryTransferListener implements TransferListener {
      */
     @Override
     public void debug(String message) {
-        LOG.debug("Message = " + message);
+        LOG.debug(prefix + "Message = " + message);
+    }
+
+    /**
+     * Number of bytes received in the current transfer
+     *
+     * @return the count
+     */
+    public long getTransferred() {
+        return transfer;
+    }
+
+    /**
+     * Average rate of the current transfer
+     *
+     * @return bytes per second, 0 when unknown
+     */
+    public long getBytesPerSecond() {
+        long elapsed = currentTimeMillis() - startTime;
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return transfer * 1000 / elapsed;
+    }
+
+    /**
+     * The current time, used for the transfer rate
+     *
+     * @return time in milliseconds
+     */
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
     }
 }
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.pom;
+
+import org.apache.maven.model.Dependency;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Determine the direct dependencies of an artifact from the pom files in the local repository without the Maven
+ * model builder. Parent inheritance, dependency management, bom imports and property interpolation are supported.
+ * Everything that requires the full model builder (profiles with dependencies, pom files not in the local
+ * repository, unresolvable expressions) results in a {@link PomReaderException}, the caller is to fall back to
+ * the model builder. Thread safe.
+ */
+public class FastPomResolver {
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)\\}");
+    private static final int MAX_DEPTH = 20;
+    private static final int MAX_INTERPOLATION_PASSES = 10;
+
+    private final File localRepository;
+    private final StreamingPomReader reader = new StreamingPomReader();
+    private final PomModelCache modelCache = new PomModelCache();
+
+    /**
+     * Default constructor
+     *
+     * @param localRepository base directory of the local repository
+     */
+    public FastPomResolver(final File localRepository) {
+        this.localRepository = localRepository;
+    }
+
+    /**
+     * Resolve the direct dependencies of the artifact
+     *
+     * @param groupId    the groupId
+     * @param artifactId the artifactId
+     * @param version    the version
+     * @return the dependencies with version, type and scope set
+     * @throws PomReaderException the dependencies cannot be determined without the model builder
+     */
+    public List<Dependency> resolveDependencies(final String groupId, final String artifactId, final String version) throws PomReaderException {
+        EffectiveModel model = buildEffectiveModel(groupId, artifactId, version, 0);
+        List<Dependency> result = new ArrayList<Dependency>();
+        for (Dependency raw : model.dependencies.values()) {
+            Dependency dependency = interpolate(raw, model.properties);
+            Dependency managed = model.managedDependencies.get(managementKey(dependency));
+            if (managed != null) {
+                if (dependency.getVersion() == null) {
+                    dependency.setVersion(managed.getVersion());
+                }
+                if (dependency.getScope() == null) {
+                    dependency.setScope(managed.getScope());
+                }
+            }
+            if (dependency.getScope() == null) {
+                dependency.setScope("compile");
+            }
+            if (dependency.getVersion() == null) {
+                throw new PomReaderException("No version for " + dependency + " in " + model);
+            }
+            verifyResolved(dependency);
+            result.add(dependency);
+        }
+        return result;
+    }
+
+    /**
+     * Read a pom file from the local repository
+     *
+     * @param groupId    the groupId
+     * @param artifactId the artifactId
+     * @param version    the version
+     * @return the raw model
+     * @throws PomReaderException not present or invalid
+     */
+    protected PomModel loadModel(final String groupId, final String artifactId, final String version) throws PomReaderException {
+        return reader.read(pomFile(groupId, artifactId, version));
+    }
+
+    /**
+     * Read a parent or bom pom file, shared by many artifacts so kept in the model cache
+     *
+     * @param groupId    the groupId
+     * @param artifactId the artifactId
+     * @param version    the version
+     * @return the raw model
+     * @throws PomReaderException not present or invalid
+     */
+    private PomModel loadSharedModel(final String groupId, final String artifactId, final String version) throws PomReaderException {
+        PomModel model = modelCache.get(groupId, artifactId, version);
+        if (model == null) {
+            model = loadModel(groupId, artifactId, version);
+            modelCache.put(groupId, artifactId, version, model);
+        }
+        return model;
+    }
+
+    /**
+     * The cache of the parent and bom models
+     *
+     * @return the cache
+     */
+    public PomModelCache getModelCache() {
+        return modelCache;
+    }
+
+    /**
+     * Location of the pom file in the local repository
+     */
+    File pomFile(final String groupId, final String artifactId, final String version) {
+        String path = groupId.replace('.', File.separatorChar) + File.separator + artifactId + File.separator + version
+                + File.separator + artifactId + "-" + version + ".pom";
+        return new File(localRepository, path);
+    }
+
+    /**
+     * Merge the parent hierarchy of the pom and resolve the imported dependency management
+     */
+    private EffectiveModel buildEffectiveModel(final String groupId, final String artifactId, final String version, final int depth) throws PomReaderException {
+        if (depth > MAX_DEPTH) {
+            throw new PomReaderException("Import depth exceeded for " + groupId + ":" + artifactId + ":" + version);
+        }
+        LinkedList<PomModel> hierarchy = new LinkedList<PomModel>();
+        PomModel current = depth == 0 ? loadModel(groupId, artifactId, version) : loadSharedModel(groupId, artifactId, version);
+        hierarchy.addFirst(current);
+        while (current.hasParent()) {
+            if (hierarchy.size() > MAX_DEPTH) {
+                throw new PomReaderException("Parent depth exceeded for " + groupId + ":" + artifactId + ":" + version);
+            }
+            if (current.getParentGroupId() == null || current.getParentVersion() == null || current.getParentVersion().contains("${")) {
+                throw new PomReaderException("Unsupported parent declaration in " + current.getArtifactId());
+            }
+            current = loadSharedModel(current.getParentGroupId(), current.getParentArtifactId(), current.getParentVersion());
+            hierarchy.addFirst(current);
+        }
+
+        EffectiveModel model = new EffectiveModel();
+        Map<String, Dependency> managed = new LinkedHashMap<String, Dependency>();
+        for (PomModel pomModel : hierarchy) {
+            if (pomModel.hasProfileDependencies()) {
+                throw new PomReaderException("Profile dependencies in " + pomModel.getArtifactId());
+            }
+            model.properties.putAll(pomModel.getProperties());
+            for (Dependency dependency : pomModel.getDependencies()) {
+                model.dependencies.put(managementKey(dependency), dependency);
+            }
+            for (Dependency dependency : pomModel.getManagedDependencies()) {
+                managed.put(managementKey(dependency), dependency);
+            }
+        }
+
+        PomModel project = hierarchy.getLast();
+        String projectGroupId = project.getGroupId() != null ? project.getGroupId() : project.getParentGroupId();
+        String projectVersion = project.getVersion() != null ? project.getVersion() : project.getParentVersion();
+        model.name = projectGroupId + ":" + project.getArtifactId() + ":" + projectVersion;
+        addProjectProperties(model.properties, "project.", project, projectGroupId, projectVersion);
+        addProjectProperties(model.properties, "pom.", project, projectGroupId, projectVersion);
+        addProjectProperties(model.properties, "", project, projectGroupId, projectVersion);
+
+        List<Dependency> imports = new ArrayList<Dependency>();
+        for (Dependency raw : managed.values()) {
+            Dependency dependency = interpolate(raw, model.properties);
+            if ("import".equals(dependency.getScope()) && "pom".equals(dependency.getType())) {
+                imports.add(dependency);
+            } else {
+                model.managedDependencies.put(managementKey(dependency), dependency);
+            }
+        }
+        for (Dependency bom : imports) {
+            verifyResolved(bom);
+            EffectiveModel imported = buildEffectiveModel(bom.getGroupId(), bom.getArtifactId(), bom.getVersion(), depth + 1);
+            for (Map.Entry<String, Dependency> entry : imported.managedDependencies.entrySet()) {
+                if (!model.managedDependencies.containsKey(entry.getKey())) {
+                    model.managedDependencies.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return model;
+    }
+
+    private void addProjectProperties(final Properties properties, final String prefix, final PomModel project, final String groupId, final String version) {
+        properties.setProperty(prefix + "groupId", groupId);
+        properties.setProperty(prefix + "artifactId", project.getArtifactId());
+        if (version != null) {
+            properties.setProperty(prefix + "version", version);
+        }
+        if (project.hasParent() && prefix.length() > 0) {
+            properties.setProperty(prefix + "parent.groupId", project.getParentGroupId());
+            properties.setProperty(prefix + "parent.artifactId", project.getParentArtifactId());
+            properties.setProperty(prefix + "parent.version", project.getParentVersion());
+        }
+    }
+
+    /**
+     * Copy of the dependency with the expressions replaced and the default type set
+     */
+    private Dependency interpolate(final Dependency raw, final Properties properties) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(interpolate(raw.getGroupId(), properties));
+        dependency.setArtifactId(interpolate(raw.getArtifactId(), properties));
+        dependency.setVersion(interpolate(raw.getVersion(), properties));
+        dependency.setClassifier(interpolate(raw.getClassifier(), properties));
+        dependency.setScope(interpolate(raw.getScope(), properties));
+        String type = interpolate(raw.getType(), properties);
+        dependency.setType(type != null ? type : "jar");
+        dependency.setOptional(interpolate(raw.getOptional(), properties));
+        return dependency;
+    }
+
+    String interpolate(final String value, final Properties properties) {
+        if (value == null || !value.contains("${")) {
+            return value;
+        }
+        String result = value;
+        for (int pass = 0; pass < MAX_INTERPOLATION_PASSES && result.contains("${"); pass++) {
+            Matcher matcher = EXPRESSION.matcher(result);
+            StringBuffer buffer = new StringBuffer();
+            boolean replaced = false;
+            while (matcher.find()) {
+                String replacement = properties.getProperty(matcher.group(1));
+                if (replacement == null) {
+                    replacement = matcher.group(0);
+                } else {
+                    replaced = true;
+                }
+                matcher.appendReplacement(buffer, Matcher.quoteReplacement(replacement));
+            }
+            matcher.appendTail(buffer);
+            result = buffer.toString();
+            if (!replaced) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void verifyResolved(final Dependency dependency) throws PomReaderException {
+        if (isUnresolved(dependency.getGroupId()) || isUnresolved(dependency.getArtifactId())
+                || isUnresolved(dependency.getVersion()) || isUnresolved(dependency.getScope())
+                || isUnresolved(dependency.getType()) || isUnresolved(dependency.getClassifier())) {
+            throw new PomReaderException("Unresolved expression in " + dependency);
+        }
+    }
+
+    private boolean isUnresolved(final String value) {
+        return value != null && value.contains("${");
+    }
+
+    /**
+     * Key used by Maven to match dependencies with the dependency management
+     */
+    private String managementKey(final Dependency dependency) {
+        String type = dependency.getType() != null ? dependency.getType() : "jar";
+        String key = dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + type;
+        if (dependency.getClassifier() != null && dependency.getClassifier().length() > 0) {
+            key += ":" + dependency.getClassifier();
+        }
+        return key;
+    }
+
+    /**
+     * The merged parent hierarchy
+     */
+    private static class EffectiveModel {
+        private String name;
+        private final Properties properties = new Properties();
+        private final Map<String, Dependency> dependencies = new LinkedHashMap<String, Dependency>();
+        private final Map<String, Dependency> managedDependencies = new LinkedHashMap<String, Dependency>();
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.pom;
+
+import org.apache.maven.model.Dependency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The raw (not inherited, not interpolated) content of a pom file required to determine its dependencies.
+ */
+public class PomModel {
+    private String groupId;
+    private String artifactId;
+    private String version;
+    private String packaging;
+    private String parentGroupId;
+    private String parentArtifactId;
+    private String parentVersion;
+    private boolean profileDependencies = false;
+    private final Properties properties = new Properties();
+    private final List<Dependency> dependencies = new ArrayList<Dependency>();
+    private final List<Dependency> managedDependencies = new ArrayList<Dependency>();
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    void setGroupId(String groupId) {
+        this.groupId = groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    void setArtifactId(String artifactId) {
+        this.artifactId = artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getPackaging() {
+        return packaging;
+    }
+
+    void setPackaging(String packaging) {
+        this.packaging = packaging;
+    }
+
+    public String getParentGroupId() {
+        return parentGroupId;
+    }
+
+    void setParentGroupId(String parentGroupId) {
+        this.parentGroupId = parentGroupId;
+    }
+
+    public String getParentArtifactId() {
+        return parentArtifactId;
+    }
+
+    void setParentArtifactId(String parentArtifactId) {
+        this.parentArtifactId = parentArtifactId;
+    }
+
+    public String getParentVersion() {
+        return parentVersion;
+    }
+
+    void setParentVersion(String parentVersion) {
+        this.parentVersion = parentVersion;
+    }
+
+    /**
+     * Does the pom have a parent
+     *
+     * @return true when a parent is declared
+     */
+    public boolean hasParent() {
+        return parentArtifactId != null;
+    }
+
+    /**
+     * Do profiles in the pom declare (managed) dependencies. These depend on profile activation which
+     * requires the full model builder.
+     *
+     * @return true when profiles contain dependencies
+     */
+    public boolean hasProfileDependencies() {
+        return profileDependencies;
+    }
+
+    void setProfileDependencies(boolean profileDependencies) {
+        this.profileDependencies = profileDependencies;
+    }
+
+    public Properties getProperties() {
+        return properties;
+    }
+
+    public List<Dependency> getDependencies() {
+        return dependencies;
+    }
+
+    public List<Dependency> getManagedDependencies() {
+        return managedDependencies;
+    }
+}
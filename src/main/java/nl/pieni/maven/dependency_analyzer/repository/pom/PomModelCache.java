@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.pom;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the parsed parent and bom pom files, keyed by groupId:artifactId:version. Shared by all artifacts resolved
+ * during a run, the small number of (corporate) parents is parsed only once. Thread safe.
+ */
+public class PomModelCache {
+    private final Map<String, PomModel> models = new ConcurrentHashMap<String, PomModel>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Retrieve a model
+     *
+     * @param groupId    the groupId
+     * @param artifactId the artifactId
+     * @param version    the version
+     * @return the model, null when not cached
+     */
+    public PomModel get(final String groupId, final String artifactId, final String version) {
+        PomModel model = models.get(key(groupId, artifactId, version));
+        if (model == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return model;
+    }
+
+    /**
+     * Add a model
+     *
+     * @param groupId    the groupId
+     * @param artifactId the artifactId
+     * @param version    the version
+     * @param model      the model
+     */
+    public void put(final String groupId, final String artifactId, final String version, final PomModel model) {
+        models.put(key(groupId, artifactId, version), model);
+    }
+
+    /**
+     * Number of models cached
+     *
+     * @return the size
+     */
+    public int size() {
+        return models.size();
+    }
+
+    /**
+     * Number of successful lookups
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of failed lookups
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private String key(final String groupId, final String artifactId, final String version) {
+        return groupId + ":" + artifactId + ":" + version;
+    }
+
+    /**
+     * String representation of the statistics
+     *
+     * @return String
+     */
+    public String toString() {
+        return "PomModelCache{ size = " + size() + " hits = " + getHits() + " misses = " + getMisses() + "}";
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.pom;
+
+/**
+ * The pom file could not be read or its dependencies could not be determined without the full Maven model builder.
+ */
+public class PomReaderException extends Exception {
+
+    /**
+     * Default constructor
+     *
+     * @param message the reason
+     */
+    public PomReaderException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor with cause
+     *
+     * @param message the reason
+     * @param cause   the cause
+     */
+    public PomReaderException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.pom;
+
+import org.apache.maven.model.Dependency;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the elements of a pom file required to determine the dependencies using a streaming (StAX) parser.
+ * Everything else (build, reporting, the content of profiles etc.) is skipped without being inspected. Thread safe.
+ */
+public class StreamingPomReader {
+    private static final List<String> DEPENDENCY_FIELDS = Arrays.asList("groupId", "artifactId", "version", "type", "classifier", "scope", "optional");
+
+    private final XMLInputFactory factory;
+
+    /**
+     * Default constructor
+     */
+    public StreamingPomReader() {
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    }
+
+    /**
+     * Read the pom file
+     *
+     * @param pomFile the file
+     * @return the model
+     * @throws PomReaderException file not found or invalid
+     */
+    public PomModel read(final File pomFile) throws PomReaderException {
+        if (!pomFile.isFile()) {
+            throw new PomReaderException("Pom file " + pomFile + " not found");
+        }
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(pomFile));
+            return read(in);
+        } catch (IOException e) {
+            throw new PomReaderException("Unable to read " + pomFile, e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    //Nothing to be done
+                }
+            }
+        }
+    }
+
+    /**
+     * Read only the packaging of the pom file, all other elements are skipped
+     *
+     * @param pomFile the file
+     * @return the packaging, null when not specified (jar)
+     * @throws PomReaderException file not found or invalid
+     */
+    public String readPackaging(final File pomFile) throws PomReaderException {
+        if (!pomFile.isFile()) {
+            throw new PomReaderException("Pom file " + pomFile + " not found");
+        }
+        InputStream in = null;
+        XMLStreamReader reader = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(pomFile));
+            reader = factory.createXMLStreamReader(in);
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (depth == 1) {
+                        if (reader.getLocalName().equals("packaging")) {
+                            return reader.getElementText().trim();
+                        }
+                        skipElement(reader);
+                    } else {
+                        depth++;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new PomReaderException("Unable to read " + pomFile, e);
+        } catch (XMLStreamException e) {
+            throw new PomReaderException("Invalid pom: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    //Nothing to be done
+                }
+            }
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    //Nothing to be done
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the pom from a stream
+     *
+     * @param in the stream, not closed
+     * @return the model
+     * @throws PomReaderException invalid pom
+     */
+    public PomModel read(final InputStream in) throws PomReaderException {
+        PomModel model = new PomModel();
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(in);
+            if (nextChild(reader) && reader.getLocalName().equals("project")) {
+                readProject(model, reader);
+            }
+        } catch (XMLStreamException e) {
+            throw new PomReaderException("Invalid pom: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    //Nothing to be done
+                }
+            }
+        }
+        if (model.getArtifactId() == null) {
+            throw new PomReaderException("Invalid pom: no artifactId");
+        }
+        return model;
+    }
+
+    /**
+     * Read the children of the project element, the ones not needed (build, reporting etc.) are skipped
+     */
+    private void readProject(final PomModel model, final XMLStreamReader reader) throws XMLStreamException {
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (setProjectField(model, name, reader)) {
+                continue;
+            }
+            if (name.equals("parent")) {
+                while (nextChild(reader)) {
+                    setParentField(model, reader.getLocalName(), reader.getElementText().trim());
+                }
+            } else if (name.equals("properties")) {
+                while (nextChild(reader)) {
+                    model.getProperties().setProperty(reader.getLocalName(), reader.getElementText().trim());
+                }
+            } else if (name.equals("dependencies")) {
+                readDependencies(model.getDependencies(), reader);
+            } else if (name.equals("dependencyManagement")) {
+                while (nextChild(reader)) {
+                    if (reader.getLocalName().equals("dependencies")) {
+                        readDependencies(model.getManagedDependencies(), reader);
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } else if (name.equals("profiles")) {
+                readProfiles(model, reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    /**
+     * Read the dependency elements of a dependencies element
+     */
+    private void readDependencies(final List<Dependency> dependencies, final XMLStreamReader reader) throws XMLStreamException {
+        while (nextChild(reader)) {
+            if (!reader.getLocalName().equals("dependency")) {
+                skipElement(reader);
+                continue;
+            }
+            Dependency dependency = new Dependency();
+            dependency.setType(null);
+            while (nextChild(reader)) {
+                String name = reader.getLocalName();
+                if (DEPENDENCY_FIELDS.contains(name)) {
+                    setDependencyField(dependency, name, reader.getElementText().trim());
+                } else {
+                    //exclusions, systemPath etc.
+                    skipElement(reader);
+                }
+            }
+            dependencies.add(dependency);
+        }
+    }
+
+    /**
+     * The profiles are not read, only the presence of dependencies in a profile is recorded
+     */
+    private void readProfiles(final PomModel model, final XMLStreamReader reader) throws XMLStreamException {
+        while (nextChild(reader)) {
+            if (!reader.getLocalName().equals("profile")) {
+                skipElement(reader);
+                continue;
+            }
+            while (nextChild(reader)) {
+                String name = reader.getLocalName();
+                if (name.equals("dependencies") || name.equals("dependencyManagement")) {
+                    model.setProfileDependencies(true);
+                }
+                skipElement(reader);
+            }
+        }
+    }
+
+    /**
+     * Move to the next child of the current element
+     *
+     * @param reader the reader positioned in the element
+     * @return true when positioned at the start of a child, false at the end of the element
+     * @throws XMLStreamException invalid xml
+     */
+    private boolean nextChild(final XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Set a direct child element of the project
+     *
+     * @return true when the element text is consumed
+     */
+    private boolean setProjectField(final PomModel model, final String name, final XMLStreamReader reader) throws XMLStreamException {
+        if (name.equals("groupId")) {
+            model.setGroupId(reader.getElementText().trim());
+        } else if (name.equals("artifactId")) {
+            model.setArtifactId(reader.getElementText().trim());
+        } else if (name.equals("version")) {
+            model.setVersion(reader.getElementText().trim());
+        } else if (name.equals("packaging")) {
+            model.setPackaging(reader.getElementText().trim());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Skip the current element including all its children, the reader is positioned at the end of the element
+     *
+     * @param reader the reader positioned at the start of the element
+     * @throws XMLStreamException invalid xml
+     */
+    private void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private void setParentField(final PomModel model, final String name, final String value) {
+        if (name.equals("groupId")) {
+            model.setParentGroupId(value);
+        } else if (name.equals("artifactId")) {
+            model.setParentArtifactId(value);
+        } else if (name.equals("version")) {
+            model.setParentVersion(value);
+        }
+    }
+
+    private void setDependencyField(final Dependency dependency, final String name, final String value) {
+        if (name.equals("groupId")) {
+            dependency.setGroupId(value);
+        } else if (name.equals("artifactId")) {
+            dependency.setArtifactId(value);
+        } else if (name.equals("version")) {
+            dependency.setVersion(value);
+        } else if (name.equals("type")) {
+            dependency.setType(value);
+        } else if (name.equals("classifier")) {
+            dependency.setClassifier(value);
+        } else if (name.equals("scope")) {
+            dependency.setScope(value);
+        } else if (name.equals("optional")) {
+            dependency.setOptional(value);
+        }
+    }
+}
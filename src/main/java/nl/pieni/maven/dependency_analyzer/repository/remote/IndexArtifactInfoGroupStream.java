@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.remote;
+
+import nl.pieni.maven.dependency_analyzer.repository.ArtifactInfoGroupStream;
+import nl.pieni.maven.dependency_analyzer.repository.LatestVersionSelector;
+import nl.pieni.maven.dependency_analyzer.util.VersionComparator;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.index.TermEnum;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.util.OpenBitSet;
+import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.ArtifactInfoGroup;
+import org.sonatype.nexus.index.context.IndexUtils;
+import org.sonatype.nexus.index.context.IndexingContext;
+
+import java.io.IOException;
+
+/**
+ * Streams the artifacts of an index matching a query grouped per GA.
+ * The matching documents are collected in a bit set, the documents are then read in the order of the
+ * {@link ArtifactInfo#UINFO} terms (groupId|artifactId|version|classifier|extension). In this order the artifacts
+ * of a GA are adjacent, so only the current group needs to be kept in memory. When a version selector is given only
+ * the selected versions of the current group are kept while reading it.
+ */
+class IndexArtifactInfoGroupStream implements ArtifactInfoGroupStream {
+    private final IndexingContext context;
+    private final LatestVersionSelector versionSelector;
+    private final VersionComparator versionComparator = new VersionComparator();
+    private final IndexReader reader;
+    private final OpenBitSet matches;
+    private final TermEnum terms;
+    private final TermDocs termDocs;
+    private ArtifactInfo pending = null;
+    private boolean started = false;
+    private boolean positioned = false;
+    private boolean exhausted = false;
+
+    /**
+     * Default constructor
+     *
+     * @param context the indexing context searched
+     * @param query   the query
+     * @throws IOException error reading the index
+     */
+    IndexArtifactInfoGroupStream(final IndexingContext context, final Query query) throws IOException {
+        this(context, query, null);
+    }
+
+    /**
+     * Constructor selecting the versions returned per group
+     *
+     * @param context         the indexing context searched
+     * @param query           the query
+     * @param versionSelector selection of the versions of each group, null for all versions
+     * @throws IOException error reading the index
+     */
+    IndexArtifactInfoGroupStream(final IndexingContext context, final Query query, final LatestVersionSelector versionSelector) throws IOException {
+        this.context = context;
+        this.versionSelector = versionSelector;
+        this.reader = context.getIndexReader();
+        this.matches = new OpenBitSet(reader.maxDoc());
+        IndexSearcher searcher = new IndexSearcher(reader);
+        try {
+            searcher.search(query, new Collector() {
+                private int docBase;
+
+                @Override
+                public void setScorer(Scorer scorer) {
+                    //Score not used
+                }
+
+                @Override
+                public void collect(int doc) {
+                    matches.fastSet(docBase + doc);
+                }
+
+                @Override
+                public void setNextReader(IndexReader indexReader, int docBase) {
+                    this.docBase = docBase;
+                }
+
+                @Override
+                public boolean acceptsDocsOutOfOrder() {
+                    return true;
+                }
+            });
+        } finally {
+            searcher.close();
+        }
+        this.terms = reader.terms(new Term(ArtifactInfo.UINFO, ""));
+        this.termDocs = reader.termDocs();
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public ArtifactInfoGroup next() throws IOException {
+        ArtifactInfo first = pending != null ? pending : nextArtifactInfo();
+        pending = null;
+        if (first == null) {
+            return null;
+        }
+        String groupKey = groupKey(first);
+        if (versionSelector == null) {
+            ArtifactInfoGroup group = new ArtifactInfoGroup(groupKey, versionComparator.groupOrder());
+            group.addArtifactInfo(first);
+            ArtifactInfo artifactInfo;
+            while ((artifactInfo = nextGroupArtifactInfo(groupKey)) != null) {
+                group.addArtifactInfo(artifactInfo);
+            }
+            return group;
+        }
+        LatestVersionSelector.Selection selection = versionSelector.start();
+        selection.add(first);
+        ArtifactInfo artifactInfo;
+        while ((artifactInfo = nextGroupArtifactInfo(groupKey)) != null) {
+            selection.add(artifactInfo);
+        }
+        return selection.getGroup(groupKey);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public int getTotalHits() {
+        return (int) matches.cardinality();
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void close() throws IOException {
+        termDocs.close();
+        terms.close();
+    }
+
+    /**
+     * The next matching artifact of the group, an artifact of the next group is kept pending
+     *
+     * @param groupKey the key of the current group
+     * @return the artifact, null when the group is complete
+     * @throws IOException error reading the index
+     */
+    private ArtifactInfo nextGroupArtifactInfo(final String groupKey) throws IOException {
+        ArtifactInfo artifactInfo = nextArtifactInfo();
+        if (artifactInfo != null && !groupKey.equals(groupKey(artifactInfo))) {
+            pending = artifactInfo;
+            return null;
+        }
+        return artifactInfo;
+    }
+
+    /**
+     * The next matching artifact in UINFO order
+     *
+     * @return the artifact, null when done
+     * @throws IOException error reading the index
+     */
+    private ArtifactInfo nextArtifactInfo() throws IOException {
+        while (positioned || nextTerm()) {
+            while (termDocs.next()) {
+                int doc = termDocs.doc();
+                if (matches.fastGet(doc)) {
+                    Document document = reader.document(doc);
+                    ArtifactInfo artifactInfo = IndexUtils.constructArtifactInfo(document, context);
+                    if (artifactInfo != null) {
+                        artifactInfo.repository = context.getRepositoryId();
+                        String indexed = document.get(ArtifactInfo.LAST_MODIFIED);
+                        if (indexed != null) {
+                            artifactInfo.getAttributes().put(INDEXED_ATTRIBUTE, indexed);
+                        }
+                        return artifactInfo;
+                    }
+                }
+            }
+            positioned = false;
+        }
+        return null;
+    }
+
+    /**
+     * Position the term documents on the next UINFO term
+     *
+     * @return false when all terms are read
+     * @throws IOException error reading the index
+     */
+    private boolean nextTerm() throws IOException {
+        if (exhausted) {
+            return false;
+        }
+        if (started && !terms.next()) {
+            exhausted = true;
+            return false;
+        }
+        started = true;
+        Term term = terms.term();
+        if (term == null || !ArtifactInfo.UINFO.equals(term.field())) {
+            exhausted = true;
+            return false;
+        }
+        termDocs.seek(term);
+        positioned = true;
+        return true;
+    }
+
+    /**
+     * Same key as used by the {@link org.sonatype.nexus.index.search.grouping.GAGrouping}
+     */
+    private String groupKey(final ArtifactInfo artifactInfo) {
+        return artifactInfo.groupId + " : " + artifactInfo.artifactId;
+    }
+}
@@ -16,15 +16,22 @@
 
 package nl.pieni.maven.dependency_analyzer.repository.remote;
 
+import nl.pieni.maven.dependency_analyzer.repository.ArtifactInfoGroupStream;
+import nl.pieni.maven.dependency_analyzer.repository.GroupPatterns;
+import nl.pieni.maven.dependency_analyzer.repository.LatestVersionSelector;
 import nl.pieni.maven.dependency_analyzer.repository.RepositorySearcher;
 import nl.pieni.maven.dependency_analyzer.repository.listener.RepositoryTransferListener;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermEnum;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.plugin.logging.Log;
+import org.sonatype.nexus.index.ArtifactInfo;
 import org.sonatype.nexus.index.ArtifactInfoGroup;
-import org.sonatype.nexus.index.Field;
 import org.sonatype.nexus.index.GroupedSearchRequest;
 import org.sonatype.nexus.index.GroupedSearchResponse;
 import org.sonatype.nexus.index.MAVEN;
@@ -41,17 +48,56 @@ import org.sonatype.nexus.index.updater.IndexUpdater;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  */
 public class RemoteRepositorySearcher implements RepositorySearcher {
+    /*
+     * Result of a repository without index
+     */
+    private static final ArtifactInfoGroupStream EMPTY_STREAM = new ArtifactInfoGroupStream() {
+        @Override
+        public ArtifactInfoGroup next() {
+            return null;
+        }
+
+        @Override
+        public int getTotalHits() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+            //Nothing to release
+        }
+    };
+
+    /*
+     * Directory (in the output directory) holding the partially downloaded index files
+     */
+    private static final String DOWNLOAD_DIRECTORY = "index-downloads";
+
     private final NexusIndexer indexer;
     private final IndexUpdater indexUpdater;
     private final Log log;
     private final File outputDirectory;
     private final boolean allowSnapshots;
+    private final int updateThreads;
+    private final int downloadRetries;
+    private final int downloadTimeout;
+    private final Set<String> updatedContexts = Collections.synchronizedSet(new HashSet<String>());
 
     /**
      * Default constructor
@@ -59,15 +105,21 @@ public class RemoteRepositorySearcher implements RepositorySearcher {
      * @param indexer         the Indexer
      * @param indexUpdater    updater
      * @param log             logger
-     * @param outputDirectory index storage base directory
+     * @param outputDirectory index storage base directory, each repository is stored in a sub directory named after its id
      * @param allowSnapshots  snaphots allowed
+     * @param updateThreads   maximum number of indexes updated concurrently
+     * @param downloadRetries number of times an interrupted index download is resumed
+     * @param downloadTimeout connect and read timeout of the index download in milliseconds, 0 for none
      */
-    public RemoteRepositorySearcher(final NexusIndexer indexer, final IndexUpdater indexUpdater, final Log log, final File outputDirectory, final boolean allowSnapshots) {
+    public RemoteRepositorySearcher(final NexusIndexer indexer, final IndexUpdater indexUpdater, final Log log, final File outputDirectory, final boolean allowSnapshots, final int updateThreads, final int downloadRetries, final int downloadTimeout) {
         this.indexer = indexer;
         this.indexUpdater = indexUpdater;
         this.log = log;
         this.outputDirectory = outputDirectory;
         this.allowSnapshots = allowSnapshots;
+        this.updateThreads = updateThreads;
+        this.downloadRetries = downloadRetries;
+        this.downloadTimeout = downloadTimeout;
     }
 
 
@@ -82,6 +134,7 @@ public class RemoteRepositorySearcher implements RepositorySearcher {
 
         BooleanQuery bq = createQuery(groupPatterns, packaging);
 
+        logEstimatedHits(groupPatterns, indexer.getIndexingContexts().values());
         GroupedSearchRequest request = new GroupedSearchRequest(bq, new GAGrouping());
 
         // Perform the search
@@ -92,9 +145,44 @@ public class RemoteRepositorySearcher implements RepositorySearcher {
         return response.getResults();
     }
 
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public ArtifactInfoGroupStream searchIndexStream(final List<String> groupPatterns, final ArtifactRepository repository, final List<String> packaging, final LatestVersionSelector versionSelector) throws IOException, UnsupportedExistingLuceneIndexException {
+
+        getIndexingContext(repository);
+        updateRemoteIndex();
+
+        BooleanQuery bq = createQuery(groupPatterns, packaging);
+
+        IndexingContext context = indexer.getIndexingContexts().get(repository.getId());
+        if (context == null) {
+            getLog().info("No index available for: " + repository.getId());
+            return EMPTY_STREAM;
+        }
+        logEstimatedHits(groupPatterns, Collections.singletonList(context));
+        ArtifactInfoGroupStream stream = new IndexArtifactInfoGroupStream(context, bq, versionSelector);
+        getLog().info("Query resulted in: " + stream.getTotalHits() + " hits");
+        return stream;
+    }
+
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public long getIndexTimestamp(final ArtifactRepository repository) {
+        IndexingContext context = indexer.getIndexingContexts().get(repository.getId());
+        if (context == null || context.getTimestamp() == null) {
+            return 0;
+        }
+        return context.getTimestamp().getTime();
+    }
 
     /**
-     * Create the query to perform
+     * Create the query to perform. The group patterns are reduced to the minimal set of groupId prefixes,
+     * each searched with a prefix query on the (untokenized) UINFO field.
      * @param groupPatterns list of patters to search for
      * @param packaging the packinging of the artifact searched for
      * @return {@link BooleanQuery}
@@ -102,17 +190,13 @@ public class RemoteRepositorySearcher implements RepositorySearcher {
     private BooleanQuery createQuery( final List<String> groupPatterns,  final List<String> packaging) {
         BooleanQuery bq = new BooleanQuery();
 
-        Query query;
-
-        Field field = MAVEN.GROUP_ID;
+        List<String> prefixes = GroupPatterns.toPrefixes(groupPatterns);
+        if (prefixes.size() < groupPatterns.size()) {
+            getLog().info("Reduced " + groupPatterns.size() + " group patterns to " + prefixes.size());
+        }
         BooleanQuery groupQuery = new BooleanQuery();
-        for (String pattern : groupPatterns) {
-            if (pattern.endsWith("*")) {
-                query = indexer.constructQuery(field, pattern, SearchType.EXACT);
-            } else {
-                query = indexer.constructQuery(field, pattern + "*", SearchType.EXACT);
-            }
-            groupQuery.add(query, BooleanClause.Occur.SHOULD);
+        for (String prefix : prefixes) {
+            groupQuery.add(new PrefixQuery(new Term(ArtifactInfo.UINFO, prefix)), BooleanClause.Occur.SHOULD);
         }
         bq.add(groupQuery, BooleanClause.Occur.MUST);
 
@@ -133,6 +217,48 @@ public class RemoteRepositorySearcher implements RepositorySearcher {
         return bq;
     }
 
+    /**
+     * Log the number of artifacts matching the group patterns, counted from the index terms before the
+     * search is executed. Packaging and classifier are not taken into account.
+     * @param groupPatterns the patterns searched for
+     * @param contexts the contexts searched
+     * @throws IOException error reading the index
+     */
+    private void logEstimatedHits(final List<String> groupPatterns, final Collection<IndexingContext> contexts) throws IOException {
+        List<String> prefixes = GroupPatterns.toPrefixes(groupPatterns);
+        long estimate = 0;
+        for (IndexingContext context : contexts) {
+            estimate += countArtifacts(context.getIndexReader(), prefixes);
+        }
+        getLog().info("Estimated hits: " + estimate + " artifacts in the groups searched");
+    }
+
+    /**
+     * Count the artifacts starting with one of the prefixes, the prefixes do not overlap
+     * @param reader the index
+     * @param prefixes the groupId prefixes
+     * @return the number of artifacts
+     * @throws IOException error reading the index
+     */
+    static long countArtifacts(final IndexReader reader, final List<String> prefixes) throws IOException {
+        long count = 0;
+        for (String prefix : prefixes) {
+            TermEnum terms = reader.terms(new Term(ArtifactInfo.UINFO, prefix));
+            try {
+                do {
+                    Term term = terms.term();
+                    if (term == null || !ArtifactInfo.UINFO.equals(term.field()) || !term.text().startsWith(prefix)) {
+                        break;
+                    }
+                    count += terms.docFreq();
+                } while (terms.next());
+            } finally {
+                terms.close();
+            }
+        }
+        return count;
+    }
+
     /**
      * Get an indexing context
      * @param repository the repository
@@ -144,6 +270,9 @@ public class RemoteRepositorySearcher implements RepositorySearcher {
             getLog().debug("Retrieving indexing contexts");
         }
 
+        if (indexer.getIndexingContexts().containsKey(repository.getId())) {
+            return;
+        }
         List<IndexCreator> indexCreators = new ArrayList<IndexCreator>();
         indexCreators.add(new MinimalArtifactInfoIndexCreator()); // list of index creators
         if (useableRepository(repository, allowSnapshots)) {
@@ -152,7 +281,7 @@ public class RemoteRepositorySearcher implements RepositorySearcher {
                     repository.getId(), //Id of the context
                     repository.getId(), //Id of the repository
                     new File(repository.getBasedir() + repository.getId()), // directory containing repository
-                    outputDirectory, // directory where index will be stored
+                    new File(outputDirectory, repository.getId()), // directory where index will be stored, one per repository as the indexes are updated concurrently
                     repository.getUrl(), //"http://nexus.pieni.nl/nexus/content/repositories/public/", // remote repository url
                     repository.getUrl() + "/.index/", //"http://nexus.pieni.nl/nexus/content/repositories/public/.index/", // index update url
                     indexCreators
@@ -180,20 +309,93 @@ public class RemoteRepositorySearcher implements RepositorySearcher {
     }
 
     /**
-     * Retrieve the index file from a remote repo
+     * @inheritDoc
+     */
+    @Override
+    public void updateIndexes(final List<ArtifactRepository> repositories) throws IOException, UnsupportedExistingLuceneIndexException {
+        for (ArtifactRepository repository : repositories) {
+            getIndexingContext(repository);
+        }
+        updateRemoteIndex();
+    }
+
+    /**
+     * Retrieve the index files from the remote repos not yet updated. The indexes are updated concurrently
+     * using at most updateThreads threads.
      * @throws IOException error connecting
      */
     private void updateRemoteIndex()
             throws IOException {
         Map<String, IndexingContext> contexts = indexer.getIndexingContexts();
+        List<IndexingContext> outdated = new ArrayList<IndexingContext>();
         for (String key : contexts.keySet()) {
-            IndexingContext context = contexts.get(key);
-            getLog().info("Updating from index from: " + context.getRepositoryUrl());
-            IndexUpdateRequest updRequest = new IndexUpdateRequest(context);
-            updRequest.setTransferListener(new RepositoryTransferListener(getLog()));
-            updRequest.setForceFullUpdate(false);
-            indexUpdater.fetchAndUpdateIndex(updRequest);
+            if (!updatedContexts.contains(key)) {
+                outdated.add(contexts.get(key));
+            }
+        }
+        if (outdated.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(updateThreads, outdated.size())));
+        Map<String, Future<Long>> updates = new LinkedHashMap<String, Future<Long>>();
+        try {
+            for (final IndexingContext context : outdated) {
+                updates.put(context.getId(), executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws IOException {
+                        return updateRemoteIndex(context);
+                    }
+                }));
+            }
+
+            IOException failure = null;
+            for (Map.Entry<String, Future<Long>> update : updates.entrySet()) {
+                try {
+                    long duration = update.getValue().get();
+                    updatedContexts.add(update.getKey());
+                    getLog().info("Index update of " + update.getKey() + " took " + duration + " ms");
+                } catch (ExecutionException e) {
+                    getLog().info("Index update of " + update.getKey() + " failed: " + e.getCause().getMessage());
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause().getMessage());
+                    }
+                }
+            }
+            getLog().info("Updated " + updates.size() + " indexes in " + (System.currentTimeMillis() - start) + " ms");
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while updating indexes");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Retrieve the index file of a single remote repo. Http downloads are resumable, the partially
+     * downloaded files are kept in the index-downloads directory.
+     * @param context the context of the repo
+     * @return duration of the update in milliseconds
+     * @throws IOException error connecting
+     */
+    private long updateRemoteIndex(final IndexingContext context) throws IOException {
+        long start = System.currentTimeMillis();
+        getLog().info("Updating from index from: " + context.getRepositoryUrl());
+        IndexUpdateRequest updRequest = new IndexUpdateRequest(context);
+        RepositoryTransferListener listener = new RepositoryTransferListener(getLog(), context.getId());
+        updRequest.setTransferListener(listener);
+        String indexUpdateUrl = context.getIndexUpdateUrl();
+        if (indexUpdateUrl != null && (indexUpdateUrl.startsWith("http://") || indexUpdateUrl.startsWith("https://"))) {
+            File partialDirectory = new File(outputDirectory, DOWNLOAD_DIRECTORY + File.separator + context.getId());
+            updRequest.setResourceFetcher(new ResumableResourceFetcher(partialDirectory, listener, getLog(), downloadRetries, downloadTimeout));
         }
+        updRequest.setForceFullUpdate(false);
+        indexUpdater.fetchAndUpdateIndex(updRequest);
+        return System.currentTimeMillis() - start;
     }
 
 
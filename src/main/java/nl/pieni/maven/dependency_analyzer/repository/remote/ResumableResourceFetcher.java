@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.remote;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferListener;
+import org.sonatype.nexus.index.updater.AbstractResourceFetcher;
+import org.sonatype.nexus.index.updater.jetty.JettyTransferEvent;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Fetches the index files over http. The data received is written to a partial file that is kept when the
+ * transfer is interrupted, the next attempt (or the next run) requests only the missing bytes (http Range).
+ * The partial file carries the Last-Modified time of the remote file, a file changed on the server is
+ * downloaded completely (If-Range). A connection that stops sending times out, the transfer is then resumed
+ * like any other interrupted transfer.
+ */
+class ResumableResourceFetcher extends AbstractResourceFetcher {
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File partialDirectory;
+    private final TransferListener listener;
+    private final Log log;
+    private final int retries;
+    private final int timeout;
+    private String baseUrl;
+
+    /**
+     * Default constructor
+     *
+     * @param partialDirectory directory holding the partially downloaded files
+     * @param listener         receives the transfer events
+     * @param log              logger
+     * @param retries          number of times an interrupted transfer is resumed
+     * @param timeout          connect and read timeout in milliseconds, 0 for none
+     */
+    ResumableResourceFetcher(final File partialDirectory, final TransferListener listener, final Log log, final int retries, final int timeout) {
+        this.partialDirectory = partialDirectory;
+        this.listener = listener;
+        this.log = log;
+        this.retries = Math.max(0, retries);
+        this.timeout = Math.max(0, timeout);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void connect(final String id, final String url) throws IOException {
+        this.baseUrl = url.endsWith("/") ? url : url + "/";
+        if (!partialDirectory.exists() && !partialDirectory.mkdirs()) {
+            throw new IOException("Unable to create directory " + partialDirectory);
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void disconnect() {
+        //Connections are not kept
+    }
+
+    /**
+     * Deprecated in the fetcher interface, but {@link AbstractResourceFetcher#retrieve(String)} delegates to this
+     * method, so it is the one to implement.
+     *
+     * @param name       name of the resource
+     * @param targetFile file the resource is written to
+     * @throws IOException Error downloading the resource
+     */
+    @SuppressWarnings("deprecation")
+    @Override
+    public void retrieve(final String name, final File targetFile) throws IOException {
+        File partial = new File(partialDirectory, name + PARTIAL_SUFFIX);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                download(name, partial);
+                break;
+            } catch (FileNotFoundException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= retries) {
+                    throw e;
+                }
+                log.warn("Transfer of " + name + " interrupted (" + e.getMessage() + "), resuming at " + partial.length() + " bytes");
+            }
+        }
+        if (targetFile.exists() && !targetFile.delete()) {
+            throw new IOException("Unable to replace " + targetFile);
+        }
+        if (!partial.renameTo(targetFile)) {
+            throw new IOException("Unable to move " + partial + " to " + targetFile);
+        }
+    }
+
+    /**
+     * Download the remaining part of the file
+     *
+     * @param name    the file name, relative to the index url
+     * @param partial the partial file
+     * @throws IOException transfer failed, the bytes received are kept
+     */
+    private void download(final String name, final File partial) throws IOException {
+        String url = baseUrl + name;
+        long offset = partial.length();
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        try {
+            if (offset > 0) {
+                connection.setRequestProperty("Range", "bytes=" + offset + "-");
+                connection.setRequestProperty("If-Range", formatHttpDate(partial.lastModified()));
+            }
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new FileNotFoundException("Resource " + url + " does not exist");
+            }
+            if (status == HttpURLConnection.HTTP_PARTIAL) {
+                log.info("Resuming download of " + url + " at " + offset + " bytes");
+            } else if (status == HttpURLConnection.HTTP_OK) {
+                offset = 0;
+            } else {
+                if (status == 416) {
+                    //Range not satisfiable, the partial file does not match the remote file
+                    deletePartial(partial);
+                }
+                throw new IOException("Transfer of " + url + " failed, status " + status);
+            }
+            transfer(url, connection, partial, offset);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Copy the response to the partial file, appending when resumed
+     */
+    private void transfer(final String url, final HttpURLConnection connection, final File partial, final long offset) throws IOException {
+        TransferEvent started = createEvent(url, TransferEvent.TRANSFER_STARTED, partial);
+        started.getResource().setContentLength(connection.getContentLength());
+        listener.transferStarted(started);
+
+        InputStream in = connection.getInputStream();
+        OutputStream out = new FileOutputStream(partial, offset > 0);
+        long lastModified = connection.getLastModified();
+        try {
+            TransferEvent progress = createEvent(url, TransferEvent.TRANSFER_PROGRESS, partial);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+                listener.transferProgress(progress, buffer, length);
+            }
+        } catch (IOException e) {
+            listener.transferError(new JettyTransferEvent(url, e, TransferEvent.REQUEST_GET));
+            throw e;
+        } finally {
+            close(out);
+            close(in);
+            //Stamp the received bytes with the remote version, checked by If-Range when resuming
+            if (lastModified > 0) {
+                partial.setLastModified(lastModified);
+            }
+        }
+        listener.transferCompleted(createEvent(url, TransferEvent.TRANSFER_COMPLETED, partial));
+    }
+
+    private TransferEvent createEvent(final String url, final int eventType, final File localFile) {
+        TransferEvent event = new JettyTransferEvent(url, eventType, TransferEvent.REQUEST_GET);
+        event.setLocalFile(localFile);
+        event.setTimestamp(System.currentTimeMillis());
+        return event;
+    }
+
+    private void deletePartial(final File partial) {
+        if (partial.exists() && !partial.delete()) {
+            log.warn("Unable to remove " + partial);
+        }
+    }
+
+    private void close(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Error closing stream: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Format a time as http date (RFC 1123)
+     *
+     * @param time the time in milliseconds
+     * @return the formatted date
+     */
+    static String formatHttpDate(final long time) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(time));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache, the least recently used entry is evicted when the maximum size is reached.
+ * Keeps hit/miss statistics. Not thread safe.
+ *
+ * @param <K> the key
+ * @param <V> the value
+ */
+public class LruCache<K, V> {
+    private final int maxSize;
+    private final Map<K, V> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Default constructor
+     *
+     * @param maxSize maximum number of entries, 0 or less disables caching
+     */
+    public LruCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Retrieve an entry
+     *
+     * @param key the key
+     * @return the value, null when not cached
+     */
+    public V get(final K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Add an entry
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(final K key, final V value) {
+        if (maxSize > 0) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Remove an entry
+     *
+     * @param key the key
+     */
+    public void remove(final K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Number of entries cached
+     *
+     * @return the size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Number of successful lookups
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Number of failed lookups
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * String representation of the statistics
+     *
+     * @return String
+     */
+    public String toString() {
+        long lookups = hits + misses;
+        long hitRate = lookups == 0 ? 0 : (hits * 100) / lookups;
+        return "LruCache{ size = " + size() + " hits = " + hits + " misses = " + misses + " hitRate = " + hitRate + "%}";
+    }
+}
@@ -23,8 +23,32 @@ import java.util.Comparator;
 
 /**
  * Compares versions of an ArtifactInfo object.
+ * The parsed versions are kept in a bounded cache, sorting the versions of an artifact parses each distinct
+ * version string once instead of twice per comparison.
  */
 public class VersionComparator implements Comparator<ArtifactInfo> {
+    /** Default number of parsed versions cached **/
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+
+    private final LruCache<String, ComparableVersion> versions;
+    private final Comparator<ArtifactInfo> groupOrder = new GroupOrder();
+    private long parseCount = 0;
+
+    /**
+     * Default constructor
+     */
+    public VersionComparator() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param cacheSize maximum number of parsed versions cached, 0 or less disables the cache
+     */
+    public VersionComparator(final int cacheSize) {
+        this.versions = new LruCache<String, ComparableVersion>(cacheSize);
+    }
 
     /**
      * @inheritDoc
@@ -32,9 +56,78 @@ public class VersionComparator implements Comparator<ArtifactInfo> {
     @Override
     public int compare( final ArtifactInfo f1,  final ArtifactInfo f2) {
 
-        ComparableVersion cv1 = new ComparableVersion(f1.version);
-        ComparableVersion cv2 = new ComparableVersion(f2.version);
+        ComparableVersion cv1 = getComparableVersion(f1.version);
+        ComparableVersion cv2 = getComparableVersion(f2.version);
 
         return cv1.compareTo(cv2);
     }
-}
\ No newline at end of file
+
+    /**
+     * The parsed version
+     *
+     * @param version the version string
+     * @return the parsed version, from the cache when parsed before
+     */
+    public synchronized ComparableVersion getComparableVersion(final String version) {
+        ComparableVersion comparableVersion = versions.get(version);
+        if (comparableVersion == null) {
+            comparableVersion = new ComparableVersion(version);
+            parseCount++;
+            versions.put(version, comparableVersion);
+        }
+        return comparableVersion;
+    }
+
+    /**
+     * Comparator ordering the artifacts of a GA group like {@link ArtifactInfo#VERSION_COMPARATOR} does (latest
+     * version first, then classifier and packaging) using the parsed versions of this comparator. For use with
+     * {@link org.sonatype.nexus.index.ArtifactInfoGroup#ArtifactInfoGroup(String, Comparator)}.
+     *
+     * @return the comparator
+     */
+    public Comparator<ArtifactInfo> groupOrder() {
+        return groupOrder;
+    }
+
+    /**
+     * Number of version strings parsed
+     *
+     * @return the count
+     */
+    public synchronized long getParseCount() {
+        return parseCount;
+    }
+
+    /**
+     * Same order as {@link ArtifactInfo#VERSION_COMPARATOR}
+     */
+    private class GroupOrder implements Comparator<ArtifactInfo> {
+        @Override
+        public int compare(final ArtifactInfo f1, final ArtifactInfo f2) {
+            int result = f1.groupId.compareTo(f2.groupId);
+            if (result != 0) {
+                return result;
+            }
+            result = f1.artifactId.compareTo(f2.artifactId);
+            if (result != 0) {
+                return result;
+            }
+            result = -VersionComparator.this.compare(f1, f2);
+            if (result != 0) {
+                return result;
+            }
+            result = compareNullFirst(f1.classifier, f2.classifier);
+            if (result != 0) {
+                return result;
+            }
+            return compareNullFirst(f1.packaging, f2.packaging);
+        }
+
+        private int compareNullFirst(final String s1, final String s2) {
+            if (s1 == null) {
+                return s2 == null ? 0 : -1;
+            }
+            return s2 == null ? 1 : s1.compareTo(s2);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.neo4j.database;
+
+import nl.pieni.maven.dependency_analyzer.database.DependencyDatabase;
+import nl.pieni.maven.dependency_analyzer.database.DependencyDatabaseSearcher;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.ScopedRelation;
+import nl.pieni.maven.dependency_analyzer.node.ArtifactNode;
+import nl.pieni.maven.dependency_analyzer.node.GroupNode;
+import nl.pieni.maven.dependency_analyzer.node.VersionNode;
+import org.apache.maven.model.Dependency;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+
+/**
+ * Bulk creation of the database
+ */
+public class BatchDependencyNodeProcessorImplTest extends AbstractDatabaseImplTest {
+
+    @Before
+    public void before() throws IOException {
+        beforeBase();
+    }
+
+    @Test
+    public void bulkCreateTest() {
+        Dependency dependencyA = getDependency();
+        Dependency dependencyB = getDependency();
+        dependencyB.setScope("compile");
+
+        BatchDependencyNodeProcessorImpl processor = new BatchDependencyNodeProcessorImpl(getDBDirectory(), log);
+        assertEquals(6, processor.addArtifact(dependencyA));
+        assertEquals(3, processor.addArtifact(dependencyB));
+        assertEquals(0, processor.addArtifact(dependencyB));
+        assertEquals(2, processor.addRelation(dependencyA, dependencyB));
+        assertEquals(0, processor.addRelation(dependencyA, dependencyB));
+        processor.shutdown();
+
+        DependencyDatabase<GraphDatabaseService, Node> database = new DependencyDatabaseImpl(log, getDBDirectory());
+        DependencyDatabaseSearcher<Node> searcher = new DependencyDatabaseSearcherImpl(log, database);
+        try {
+            GroupNode groupNode = searcher.findGroupNode("nl.pieni");
+            assertNotNull(groupNode);
+            ArtifactNode artifactNode = searcher.findArtifactNode(dependencyB);
+            assertNotNull(artifactNode);
+            assertEquals(dependencyB.getArtifactId(), artifactNode.getArtifactId());
+            VersionNode versionNode = searcher.findVersionNode(dependencyB);
+            assertEquals("1.0", versionNode.getVersion());
+
+            Map<ScopedRelation, List<ArtifactNode>> depending = searcher.getDependingArtifacts(dependencyB);
+            assertEquals(1, depending.get(ScopedRelation.compile).size());
+            Map<VersionNode, List<VersionNode>> versionDependencies = searcher.getVersionDependencies(dependencyB);
+            assertEquals(1, versionDependencies.get(versionNode).size());
+
+            //Database is usable for transactional updates
+            DependencyNodeProcessorImpl transactional = new DependencyNodeProcessorImpl(database, searcher, log);
+            assertEquals(0, transactional.addArtifact(dependencyA));
+            assertEquals(0, transactional.addRelation(dependencyA, dependencyB));
+        } finally {
+            database.shutdownDatabase();
+        }
+    }
+}
@@ -17,10 +17,13 @@
 package nl.pieni.maven.dependency_analyzer.neo4j.database;
 
 import nl.pieni.maven.dependency_analyzer.database.DependencyDatabase;
+import nl.pieni.maven.dependency_analyzer.database.DependencyNodeProcessor;
+import org.apache.maven.model.Dependency;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotInTransactionException;
@@ -28,7 +31,11 @@ import org.neo4j.graphdb.TransactionFailureException;
 
 import java.io.IOException;
 
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
 /**
  * Database tests
@@ -70,6 +77,61 @@ public class DependencyDatabaseImplTest extends AbstractDatabaseImplTest {
         database.stopTransaction();
     }
 
+    @Test(expected = NotInTransactionException.class)
+    public void batchedTransactionTest() {
+        database.setTransactionBatch(10, 0);
+        database.startTransaction();
+        database.createNode();
+        database.stopTransaction();
+        //Batch still open
+        database.createNode();
+        database.flushTransaction();
+        database.createNode();
+    }
+
+    @Test
+    public void batchedProcessorTest() {
+        database.setTransactionBatch(100, 0);
+        DependencyNodeProcessor processor = new DependencyNodeProcessorImpl(database, new DependencyDatabaseSearcherImpl(log, database), log);
+        Dependency dependencyA = getDependency();
+        Dependency dependencyB = getDependency();
+        dependencyB.setScope("compile");
+        processor.addArtifact(dependencyA);
+        processor.addArtifact(dependencyB);
+        assertEquals(2, processor.addRelation(dependencyA, dependencyB));
+        assertEquals(0, processor.addRelation(dependencyA, dependencyB));
+        database.flushTransaction();
+    }
+
+    @Test
+    public void rolledBackBatchTest() {
+        database.setTransactionBatch(100, 0);
+        DependencyNodeProcessor processor = new DependencyNodeProcessorImpl(database, new DependencyDatabaseSearcherImpl(log, database), log);
+        Dependency dependencyA = getDependency();
+        Dependency dependencyB = getDependency();
+        dependencyB.setScope("compile");
+        processor.addArtifact(dependencyA);
+        processor.addArtifact(dependencyB);
+        assertEquals(2, processor.addRelation(dependencyA, dependencyB));
+
+        //Deleting a node with relations fails the commit of the whole batch
+        Node node = database.createNode();
+        database.createNode().createRelationshipTo(node, DynamicRelationshipType.withName("test"));
+        node.delete();
+        try {
+            database.flushTransaction();
+            fail("Commit should fail");
+        } catch (TransactionFailureException e) {
+            assertEquals(1, database.getRollbackCount());
+        }
+
+        assertTrue(processor.addArtifact(dependencyA) > 0);
+        processor.addArtifact(dependencyB);
+        assertEquals(2, processor.addRelation(dependencyA, dependencyB));
+        database.flushTransaction();
+        assertEquals(1, database.getRollbackCount());
+    }
+
     @Ignore
     @Test(expected = TransactionFailureException.class)
     public void shutdownDatabaseAndPendingTransaction() {
@@ -82,4 +144,25 @@ public class DependencyDatabaseImplTest extends AbstractDatabaseImplTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void readOnlyConcurrentReadersTest() {
+        Dependency dependency = getDependency();
+        DependencyDatabaseSearcherImpl searcher = new DependencyDatabaseSearcherImpl(log, database);
+        new DependencyNodeProcessorImpl(database, searcher, log).addArtifact(dependency);
+        searcher.shutdownSearcher();
+        database.shutdownDatabase();
+        dbClosed = true;
+
+        DependencyDatabase<GraphDatabaseService, Node> reader1 = new DependencyDatabaseImpl(log, getDBDirectory(), true);
+        DependencyDatabase<GraphDatabaseService, Node> reader2 = new DependencyDatabaseImpl(log, getDBDirectory(), true);
+        try {
+            assertTrue(reader1.isReadOnly());
+            assertNotNull(new DependencyDatabaseSearcherImpl(log, reader1).findVersionNode(dependency));
+            assertNotNull(new DependencyDatabaseSearcherImpl(log, reader2).findVersionNode(dependency));
+        } finally {
+            reader1.shutdownDatabase();
+            reader2.shutdownDatabase();
+        }
+    }
 }
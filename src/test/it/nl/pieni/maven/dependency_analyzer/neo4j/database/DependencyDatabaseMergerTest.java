@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.neo4j.database;
+
+import nl.pieni.maven.dependency_analyzer.database.DependencyDatabase;
+import nl.pieni.maven.dependency_analyzer.database.DependencyDatabaseSearcher;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.ScopedRelation;
+import nl.pieni.maven.dependency_analyzer.node.ArtifactNode;
+import nl.pieni.maven.dependency_analyzer.node.VersionNode;
+import org.apache.maven.model.Dependency;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+
+/**
+ * Merging of shard databases
+ */
+public class DependencyDatabaseMergerTest extends AbstractDatabaseImplTest {
+
+    @Before
+    public void before() throws IOException {
+        beforeBase();
+    }
+
+    @Test
+    public void mergeTest() {
+        Dependency dependencyA = getDependency();
+        Dependency dependencyB = getDependency();
+        dependencyB.setScope("compile");
+        Dependency dependencyC = getDependency();
+        dependencyC.setScope("test");
+
+        //Both shards hold B, and the relation A -> B
+        createShard(getDBDirectory() + "/shard0", dependencyA, dependencyB, dependencyB);
+        createShard(getDBDirectory() + "/shard1", dependencyA, dependencyB, dependencyC);
+
+        DependencyDatabase<GraphDatabaseService, Node> database = new DependencyDatabaseImpl(log, getDBDirectory() + "/merged");
+        DependencyDatabaseSearcher<Node> searcher = new DependencyDatabaseSearcherImpl(log, database);
+        try {
+            DependencyDatabaseMerger merger = new DependencyDatabaseMerger(new DependencyNodeProcessorImpl(database, searcher, log), log);
+            merge(merger, getDBDirectory() + "/shard0");
+            assertEquals(2, merger.getRelationCreateCount());
+            merge(merger, getDBDirectory() + "/shard1");
+            assertEquals(4, merger.getRelationCreateCount());
+
+            VersionNode versionNode = searcher.findVersionNode(dependencyC);
+            assertNotNull(versionNode);
+            Map<ScopedRelation, List<ArtifactNode>> depending = searcher.getDependingArtifacts(dependencyB);
+            assertEquals(1, depending.get(ScopedRelation.compile).size());
+            depending = searcher.getDependingArtifacts(dependencyC);
+            assertEquals(1, depending.get(ScopedRelation.test).size());
+            Map<VersionNode, List<VersionNode>> versionDependencies = searcher.getVersionDependencies(dependencyB);
+            assertEquals(1, versionDependencies.get(searcher.findVersionNode(dependencyB)).size());
+        } finally {
+            database.shutdownDatabase();
+        }
+    }
+
+    private void createShard(String directory, Dependency source, Dependency first, Dependency second) {
+        DependencyDatabase<GraphDatabaseService, Node> shard = new DependencyDatabaseImpl(log, directory);
+        DependencyDatabaseSearcher<Node> searcher = new DependencyDatabaseSearcherImpl(log, shard);
+        try {
+            DependencyNodeProcessorImpl processor = new DependencyNodeProcessorImpl(shard, searcher, log);
+            processor.addArtifact(source);
+            processor.addArtifact(first);
+            processor.addArtifact(second);
+            processor.addRelation(source, first);
+            processor.addRelation(source, second);
+        } finally {
+            shard.shutdownDatabase();
+        }
+    }
+
+    private void merge(DependencyDatabaseMerger merger, String directory) {
+        DependencyDatabase<GraphDatabaseService, Node> shard = new DependencyDatabaseImpl(log, directory);
+        try {
+            merger.merge(shard.getDatabase());
+        } finally {
+            shard.shutdownDatabase();
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -217,4 +218,58 @@ public class DependencyDatabaseSearcherImplNonBreakingTest extends AbstractDatab
         result = searcher.getVersionDependencies(dependency);
         assertEquals(0, result.keySet().size());
     }
+
+    @Test
+    public void cachedLookupTest() {
+        Dependency dependency = getDependency();
+        DependencyDatabaseSearcherImpl cachedSearcher = new DependencyDatabaseSearcherImpl(log, database);
+        DependencyNodeProcessor processor = new DependencyNodeProcessorImpl(database, cachedSearcher, log);
+        processor.addArtifact(dependency);
+        ArtifactNodeDecorator first = (ArtifactNodeDecorator) cachedSearcher.findArtifactNode(dependency);
+        ArtifactNodeDecorator second = (ArtifactNodeDecorator) cachedSearcher.findArtifactNode(dependency);
+        assertEquals(first.getId(), second.getId());
+        assertTrue(cachedSearcher.getCacheStatistics().contains("artifacts LruCache{ size = 1"));
+
+        assertEquals(1, cachedSearcher.getVersionNodes(dependency).size());
+        Dependency dependency2 = dependency.clone();
+        dependency2.setVersion("2.0");
+        processor.addArtifact(dependency2);
+        //The insert of the version invalidates the cached version list
+        assertEquals(2, cachedSearcher.getVersionNodes(dependency).size());
+    }
+
+    @Test
+    public void batchLookupTest() {
+        Dependency dependencyA = getDependency();
+        dependencyA.setScope("compile");
+        Dependency dependencyB = getDependency();
+        dependencyB.setScope("compile");
+        Dependency dependencyC = getDependency();
+        Dependency notFound = getDependency();
+        DependencyNodeProcessor processor = new DependencyNodeProcessorImpl(database, searcher, log);
+        processor.addArtifact(dependencyA);
+        processor.addArtifact(dependencyB);
+        processor.addArtifact(dependencyC);
+        processor.addRelation(dependencyC, dependencyA);
+        processor.addRelation(dependencyC, dependencyB);
+
+        List<Dependency> dependencies = Arrays.asList(dependencyB, dependencyA, notFound);
+        String keyA = dependencyA.getGroupId() + ":" + dependencyA.getArtifactId();
+        String keyB = dependencyB.getGroupId() + ":" + dependencyB.getArtifactId();
+        Map<String, ArtifactNode> artifactNodes = searcher.findArtifactNodes(dependencies);
+        assertEquals(2, artifactNodes.size());
+        assertEquals(dependencyA.getArtifactId(), artifactNodes.get(keyA).getArtifactId());
+        assertEquals(1, searcher.getVersionNodes(artifactNodes).get(keyB).size());
+
+        Map<String, Map<ScopedRelation, List<ArtifactNode>>> depending = searcher.getDependingArtifacts(artifactNodes);
+        ArtifactNode dependingA = depending.get(keyA).get(ScopedRelation.compile).get(0);
+        ArtifactNode dependingB = depending.get(keyB).get(ScopedRelation.compile).get(0);
+        assertEquals(dependencyC.getArtifactId(), dependingA.getArtifactId());
+        //The depending artifact is shared by the batch
+        assertTrue(dependingA == dependingB);
+
+        Map<String, Map<VersionNode, List<VersionNode>>> versionDependencies = searcher.getVersionDependencies(artifactNodes);
+        assertEquals(1, versionDependencies.get(keyA).values().iterator().next().size());
+        assertNull(versionDependencies.get(notFound.getGroupId() + ":" + notFound.getArtifactId()));
+    }
 }
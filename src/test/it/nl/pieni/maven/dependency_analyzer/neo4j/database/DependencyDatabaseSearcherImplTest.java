@@ -18,6 +18,10 @@ package nl.pieni.maven.dependency_analyzer.neo4j.database;
 
 import nl.pieni.maven.dependency_analyzer.database.DependencyDatabase;
 import nl.pieni.maven.dependency_analyzer.database.DependencyDatabaseSearcher;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeProperties;
+import nl.pieni.maven.dependency_analyzer.neo4j.enums.NodeType;
+import nl.pieni.maven.dependency_analyzer.neo4j.node.ArtifactNodeDecorator;
+import org.apache.maven.model.Dependency;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -104,6 +108,24 @@ public class DependencyDatabaseSearcherImplTest extends AbstractDatabaseImplTest
         searcher.indexOnProperty(node, "Key");
     }
 
+    @Test
+    public void indexOnKeyTest() {
+        database.startTransaction();
+        Node node = database.createNode();
+        node.setProperty(NodeProperties.NODE_TYPE, NodeType.ArtifactNode.name());
+        searcher.indexOnKey(node, NodeProperties.ARTIFACT_KEY, "nl.pieni:artifact");
+        database.stopTransaction();
+
+        assertTrue(database.getDatabase().getReferenceNode().hasProperty(NodeProperties.COMPOSITE_INDEX));
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("nl.pieni");
+        dependency.setArtifactId("artifact");
+        ArtifactNodeDecorator artifactNode = (ArtifactNodeDecorator) searcher.findArtifactNode(dependency);
+        assertEquals(node.getId(), artifactNode.getId());
+        dependency.setArtifactId("other");
+        assertNull(searcher.findArtifactNode(dependency));
+    }
+
     @Test(expected = NotFoundException.class)
     public void shutdownSearcher() {
         searcher.shutdownSearcher();
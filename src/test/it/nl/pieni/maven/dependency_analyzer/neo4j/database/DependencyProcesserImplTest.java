@@ -44,6 +44,13 @@ public class DependencyProcesserImplTest extends AbstractDatabaseImplTest {
             database = new DependencyDatabaseImpl(log, getDBDirectory());
             DependencyDatabaseSearcher<Node> searcher = new DependencyDatabaseSearcherImpl(log, database);
             processor = new DependencyNodeProcessorImpl(database, searcher, log);
+            //Creates the shared parent group nodes, the tests do not depend on their order
+            Dependency parent = new Dependency();
+            parent.setGroupId("nl.pieni.maven");
+            parent.setArtifactId("parent");
+            parent.setVersion("1.0");
+            parent.setType("jar");
+            processor.addArtifact(parent);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -60,7 +67,7 @@ public class DependencyProcesserImplTest extends AbstractDatabaseImplTest {
         Dependency dependencyB = getDependency();
         dependencyB.setScope("compile");
         int count = processor.addArtifact(dependencyA);
-        assertEquals(6, count);
+        assertEquals(3, count);
         count = processor.addArtifact(dependencyB);
         assertEquals(3, count);
         count = processor.addRelation(dependencyA, dependencyB);
@@ -83,6 +90,42 @@ public class DependencyProcesserImplTest extends AbstractDatabaseImplTest {
 
     }
 
+    @Test
+    public void addRelationExistingInStoreTest() {
+        Dependency dependencyA = getDependency();
+        Dependency dependencyB = getDependency();
+        dependencyB.setScope("compile");
+        processor.addArtifact(dependencyA);
+        processor.addArtifact(dependencyB);
+        assertEquals(2, processor.addRelation(dependencyA, dependencyB));
+
+        //A new processor reads the relations present from the store
+        DependencyDatabaseSearcher<Node> searcher = new DependencyDatabaseSearcherImpl(log, database);
+        DependencyNodeProcessor newProcessor = new DependencyNodeProcessorImpl(database, searcher, log);
+        assertEquals(0, newProcessor.addRelation(dependencyA, dependencyB));
+    }
+
+    @Test
+    public void addRelationEvictedSourceTest() {
+        DependencyDatabaseSearcher<Node> searcher = new DependencyDatabaseSearcherImpl(log, database);
+        DependencyNodeProcessor smallProcessor = new DependencyNodeProcessorImpl(database, searcher, log, 1);
+        Dependency dependencyA = getDependency();
+        Dependency dependencyB = getDependency();
+        dependencyB.setScope("compile");
+        Dependency dependencyC = getDependency();
+        Dependency dependencyD = getDependency();
+        dependencyD.setScope("compile");
+        smallProcessor.addArtifact(dependencyA);
+        smallProcessor.addArtifact(dependencyB);
+        smallProcessor.addArtifact(dependencyC);
+        smallProcessor.addArtifact(dependencyD);
+        assertEquals(2, smallProcessor.addRelation(dependencyA, dependencyB));
+        assertEquals(2, smallProcessor.addRelation(dependencyC, dependencyD));
+
+        //The relations of A are evicted and read from the store again
+        assertEquals(0, smallProcessor.addRelation(dependencyA, dependencyB));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void addRelationNoScopeTest() {
         Dependency dependencyA = getDependency();
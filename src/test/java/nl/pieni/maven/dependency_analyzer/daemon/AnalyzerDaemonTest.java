@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.daemon;
+
+import nl.pieni.maven.dependency_analyzer.database.DependencyDatabase;
+import nl.pieni.maven.dependency_analyzer.database.DependencyDatabaseSearcher;
+import nl.pieni.maven.dependency_analyzer.node.ArtifactNode;
+import nl.pieni.maven.dependency_analyzer.node.GroupNode;
+import nl.pieni.maven.dependency_analyzer.node.VersionNode;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testing of the daemon protocol
+ */
+public class AnalyzerDaemonTest {
+    private DependencyDatabaseSearcher searcher;
+    private AnalyzerDaemon daemon;
+    private DaemonClient client;
+
+    @Before
+    public void before() throws IOException {
+        searcher = mock(DependencyDatabaseSearcher.class);
+        daemon = new AnalyzerDaemon(mock(Log.class), mock(DependencyDatabase.class), searcher);
+        daemon.start(0);
+        client = new DaemonClient(daemon.getPort());
+    }
+
+    @After
+    public void after() {
+        daemon.stop();
+    }
+
+    @Test
+    public void pingTest() {
+        assertTrue(client.isRunning());
+    }
+
+    @Test
+    public void reportUnknownArtifactTest() throws IOException {
+        StringWriter out = new StringWriter();
+        client.report("nl.pieni", "absent", out);
+        assertEquals("", out.toString());
+        verify(searcher).findArtifactNode(any(Dependency.class));
+    }
+
+    @Test
+    public void invalidReportTest() throws IOException {
+        try {
+            client.report("nl.pieni", "a:b", new StringWriter());
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("groupId:artifactId"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failedReportTest() throws IOException {
+        //The report fails after its header is written
+        ArtifactNode artifactNode = mock(ArtifactNode.class);
+        GroupNode groupNode = mock(GroupNode.class);
+        when(artifactNode.getParent()).thenReturn(groupNode);
+        VersionNode versionNode = mock(VersionNode.class);
+        when(versionNode.getVersion()).thenThrow(new IllegalStateException("broken"));
+        when(searcher.findArtifactNode(any(Dependency.class))).thenReturn(artifactNode);
+        when(searcher.getVersionNodes(any(Dependency.class))).thenReturn(Collections.singletonList(versionNode));
+
+        StringWriter out = new StringWriter();
+        try {
+            client.report("nl.pieni", "broken", out);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("broken"));
+        }
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void stopTest() throws Exception {
+        client.stop();
+        daemon.awaitStop();
+        assertFalse(client.isRunning());
+    }
+}
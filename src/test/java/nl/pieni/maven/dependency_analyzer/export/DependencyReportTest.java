@@ -31,6 +31,8 @@ import org.junit.Test;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -178,4 +180,35 @@ public class DependencyReportTest {
         verify(systemStreamLog).info("Version specific relations");
     }
 
+    @Test
+    public void createReportsTest() throws IOException {
+        Dependency notFound = new Dependency();
+        notFound.setGroupId("a");
+        notFound.setArtifactId("b");
+        List<Dependency> dependencies = Arrays.asList(reportDependency1, notFound);
+        //The batch lookups, keyed by groupId:artifactId
+        String key = "reportGroupNode:reportArtifactNode";
+        Map artifactNodes = Collections.singletonMap(key, searcher.findArtifactNode(reportDependency1));
+        Map versionNodes = Collections.singletonMap(key, searcher.getVersionNodes(reportDependency1));
+        Map dependingArtifacts = Collections.singletonMap(key, searcher.getDependingArtifacts(reportDependency1));
+        Map versionDependencies = Collections.singletonMap(key, searcher.getVersionDependencies(reportDependency1));
+        when(searcher.findArtifactNodes(dependencies)).thenReturn(artifactNodes);
+        when(searcher.getVersionNodes(artifactNodes)).thenReturn(versionNodes);
+        when(searcher.getDependingArtifacts(artifactNodes)).thenReturn(dependingArtifacts);
+        when(searcher.getVersionDependencies(artifactNodes)).thenReturn(versionDependencies);
+
+        DependencyReport report = new DependencyReportImpl(searcher);
+        StringWriter writer = mock(StringWriter.class);
+        report.createReports(dependencies, writer);
+
+        //The artifacts are resolved once for all lookups
+        verify(searcher, times(1)).findArtifactNodes(dependencies);
+
+        verify(writer).write(LINESEPERATOR + "Report for artifact: " + key + LINESEPERATOR);
+        verify(writer).write(LINESEPERATOR + "Report for artifact: a:b" + LINESEPERATOR);
+        verify(writer).write("Report for Artifact: \"reportGID:reportAID\"" + LINESEPERATOR);
+        verify(writer, times(2)).write("\t1.0" + LINESEPERATOR);
+        verify(writer).write("\t\totherGID:otherAID:jar" + LINESEPERATOR);
+        verify(writer).write("Version specific relations" + LINESEPERATOR);
+    }
 }
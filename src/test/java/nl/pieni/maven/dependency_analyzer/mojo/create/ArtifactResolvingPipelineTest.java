@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.ProjectBuildingException;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.nexus.index.ArtifactInfo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Testing of the resolving pipeline
+ */
+public class ArtifactResolvingPipelineTest {
+    private Log log;
+    private List<ResolvedArtifact> written;
+    private Set<Thread> writerThreads;
+    private ArtifactResolvingPipeline.Writer writer;
+    private ArtifactResolvingPipeline.Resolver resolver;
+
+    @Before
+    public void before() {
+        log = mock(Log.class);
+        written = new ArrayList<ResolvedArtifact>();
+        writerThreads = new HashSet<Thread>();
+        writer = new ArtifactResolvingPipeline.Writer() {
+            @Override
+            public void write(ResolvedArtifact resolvedArtifact) {
+                writerThreads.add(Thread.currentThread());
+                written.add(resolvedArtifact);
+            }
+        };
+        resolver = new ArtifactResolvingPipeline.Resolver() {
+            @Override
+            public ResolvedArtifact resolve(ArtifactInfo artifactInfo) throws ProjectBuildingException {
+                if ("broken".equals(artifactInfo.artifactId)) {
+                    throw new ProjectBuildingException(artifactInfo.artifactId, "broken", (Throwable) null);
+                }
+                Dependency dependency = new Dependency();
+                dependency.setArtifactId(artifactInfo.artifactId);
+                return new ResolvedArtifact(artifactInfo, dependency, new ArrayList<Dependency>());
+            }
+        };
+    }
+
+    @Test
+    public void singleThreadTest() throws MojoExecutionException {
+        ArtifactResolvingPipeline pipeline = new ArtifactResolvingPipeline(resolver, writer, 1, 10, log);
+        pipeline.process(new ArtifactInfo("repo", "group", "artifact", "1.0", null));
+        assertEquals(1, written.size());
+        pipeline.finish();
+        pipeline.shutdown();
+        assertEquals(1, written.size());
+        assertTrue(writerThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void multiThreadTest() throws MojoExecutionException {
+        ArtifactResolvingPipeline pipeline = new ArtifactResolvingPipeline(resolver, writer, 4, 3, log);
+        for (int i = 0; i < 50; i++) {
+            pipeline.process(new ArtifactInfo("repo", "group", "artifact" + i, "1.0", null));
+        }
+        pipeline.finish();
+        pipeline.shutdown();
+        assertEquals(50, written.size());
+        assertEquals(1, writerThreads.size());
+        assertTrue(writerThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void buildErrorTest() throws MojoExecutionException {
+        ArtifactResolvingPipeline pipeline = new ArtifactResolvingPipeline(resolver, writer, 2, 10, log);
+        pipeline.process(new ArtifactInfo("repo", "group", "broken", "1.0", null));
+        pipeline.process(new ArtifactInfo("repo", "group", "artifact", "1.0", null));
+        pipeline.finish();
+        pipeline.shutdown();
+        assertEquals(1, written.size());
+        verify(log).info(startsWith("Error building project"));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import nl.pieni.maven.dependency_analyzer.repository.ArtifactInfoGroupStream;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.nexus.index.ArtifactInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Testing of the incremental state
+ */
+public class IncrementalStateTest {
+    private Log log;
+    private File directory;
+
+    @Before
+    public void before() throws IOException {
+        log = mock(Log.class);
+        directory = File.createTempFile("incremental-state", "dir");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void after() {
+        new File(directory, IncrementalState.STATE_FILE_NAME).delete();
+        directory.delete();
+    }
+
+    @Test
+    public void unknownRepositoryTest() {
+        IncrementalState state = new IncrementalState(directory, Arrays.asList("nl.pieni"), log);
+        state.load();
+        assertEquals(0, state.getIndexTimestamp("central"));
+        assertFalse(state.isProcessed(artifactInfo("1.0", 100L, null)));
+    }
+
+    @Test
+    public void storeLoadTest() throws IOException {
+        IncrementalState state = new IncrementalState(directory, Arrays.asList("nl.pieni"), log);
+        state.load();
+        state.setIndexTimestamp("central", 1234L);
+        state.store();
+
+        state = new IncrementalState(directory, Arrays.asList("nl.pieni"), log);
+        state.load();
+        assertEquals(1234L, state.getIndexTimestamp("central"));
+        assertEquals(0, state.getIndexTimestamp("snapshots"));
+    }
+
+    @Test
+    public void patternsChangedTest() throws IOException {
+        IncrementalState state = new IncrementalState(directory, Arrays.asList("nl.pieni"), log);
+        state.setIndexTimestamp("central", 1234L);
+        state.store();
+
+        state = new IncrementalState(directory, Arrays.asList("org.apache"), log);
+        state.load();
+        assertEquals(0, state.getIndexTimestamp("central"));
+    }
+
+    @Test
+    public void advanceTest() {
+        IncrementalState state = new IncrementalState(directory, Arrays.asList("nl.pieni"), log);
+        state.load();
+        state.setIndexTimestamp("snapshots", 100L);
+        state.start("central", 300L);
+        state.start("snapshots", 50L);
+        state.advance();
+        assertEquals(300L, state.getIndexTimestamp("central"));
+        //Never moves back
+        assertEquals(100L, state.getIndexTimestamp("snapshots"));
+
+        //Only the repositories started are advanced
+        state.start("central", 400L);
+        state.advance();
+        state.advance();
+        assertEquals(400L, state.getIndexTimestamp("central"));
+    }
+
+    @Test
+    public void proxiedArtifactTest() {
+        IncrementalState state = new IncrementalState(directory, Arrays.asList("nl.pieni"), log);
+        state.load();
+        state.setIndexTimestamp("central", 1000L);
+        //An old artifact proxied after the index processed, it keeps the remote lastModified
+        assertFalse(state.isProcessed(artifactInfo("1.0", 10L, 2000L)));
+        assertTrue(state.isProcessed(artifactInfo("1.0", 10L, 500L)));
+        //Without index record timestamp the lastModified is used
+        assertTrue(state.isProcessed(artifactInfo("1.0", 500L, null)));
+        assertFalse(state.isProcessed(artifactInfo("1.0", 2000L, null)));
+    }
+
+    @Test
+    public void failedTest() throws IOException {
+        IncrementalState state = new IncrementalState(directory, Arrays.asList("nl.pieni"), log);
+        state.load();
+        state.failed(artifactInfo("1.0", 200L, 200L));
+        state.start("central", 1000L);
+        state.advance();
+        //The failure does not hold back the index timestamp
+        assertEquals(1000L, state.getIndexTimestamp("central"));
+        state.store();
+
+        state = new IncrementalState(directory, Arrays.asList("nl.pieni"), log);
+        state.load();
+        assertFalse(state.isProcessed(artifactInfo("1.0", 200L, 200L)));
+        assertTrue(state.isProcessed(artifactInfo("2.0", 200L, 200L)));
+        ArtifactInfo changed = artifactInfo("1.0", 200L, 200L);
+        changed.sha1 = "other";
+        assertTrue(state.isProcessed(changed));
+
+        state.resolved(artifactInfo("1.0", 200L, 200L));
+        assertTrue(state.isProcessed(artifactInfo("1.0", 200L, 200L)));
+    }
+
+    private ArtifactInfo artifactInfo(final String version, final long lastModified, final Long indexed) {
+        ArtifactInfo artifactInfo = new ArtifactInfo("central", "nl.pieni", "artifact", version, null);
+        artifactInfo.lastModified = lastModified;
+        artifactInfo.sha1 = "sha1";
+        if (indexed != null) {
+            artifactInfo.getAttributes().put(ArtifactInfoGroupStream.INDEXED_ATTRIBUTE, String.valueOf(indexed));
+        }
+        return artifactInfo;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Testing of the ingestion checkpoint
+ */
+public class IngestionCheckpointTest {
+    private Log log;
+    private File directory;
+
+    @Before
+    public void before() throws IOException {
+        log = mock(Log.class);
+        directory = File.createTempFile("ingestion-checkpoint", "dir");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void after() {
+        new File(directory, IngestionCheckpoint.CHECKPOINT_FILE_NAME).delete();
+        directory.delete();
+    }
+
+    @Test
+    public void noCheckpointTest() {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint(directory, log);
+        assertFalse(checkpoint.load());
+        assertNull(checkpoint.getRepositoryId());
+        assertEquals(0, checkpoint.getNodeCreateCount());
+    }
+
+    @Test
+    public void storeLoadTest() throws IOException {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint(directory, log);
+        checkpoint.store("central", "nl.pieni|analyzer|", 10, 5);
+
+        checkpoint = new IngestionCheckpoint(directory, log);
+        assertTrue(checkpoint.load());
+        assertEquals("central", checkpoint.getRepositoryId());
+        assertEquals("nl.pieni|analyzer|", checkpoint.getPosition());
+        assertEquals(10, checkpoint.getNodeCreateCount());
+        assertEquals(5, checkpoint.getRelationCreateCount());
+    }
+
+    @Test
+    public void clearTest() throws IOException {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint(directory, log);
+        checkpoint.store("central", "nl.pieni|analyzer|", 10, 5);
+        checkpoint.clear();
+        assertFalse(new File(directory, IngestionCheckpoint.CHECKPOINT_FILE_NAME).exists());
+        assertFalse(new IngestionCheckpoint(directory, log).load());
+    }
+
+    @Test
+    public void replaceTest() throws IOException {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint(directory, log);
+        checkpoint.store("central", "nl.pieni|analyzer|", 10, 5);
+        checkpoint.store("central", "org.apache|maven|", 20, 8);
+        assertFalse(new File(directory, IngestionCheckpoint.CHECKPOINT_FILE_NAME + ".tmp").exists());
+
+        checkpoint = new IngestionCheckpoint(directory, log);
+        assertTrue(checkpoint.load());
+        assertEquals("org.apache|maven|", checkpoint.getPosition());
+        assertEquals(20, checkpoint.getNodeCreateCount());
+    }
+}
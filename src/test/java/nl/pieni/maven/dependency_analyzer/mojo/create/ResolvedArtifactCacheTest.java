@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.mojo.create;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.nexus.index.ArtifactInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Testing of the resolved artifact cache
+ */
+public class ResolvedArtifactCacheTest {
+    private Log log;
+    private File directory;
+    private List<String> patterns;
+
+    @Before
+    public void before() throws IOException {
+        log = mock(Log.class);
+        directory = File.createTempFile("resolved-cache", "dir");
+        directory.delete();
+        directory.mkdir();
+        patterns = Arrays.asList("nl.pieni");
+    }
+
+    @After
+    public void after() {
+        new File(directory, ResolvedArtifactCache.CACHE_FILE_NAME).delete();
+        directory.delete();
+    }
+
+    private ArtifactInfo createArtifactInfo(String version, String sha1) {
+        ArtifactInfo artifactInfo = new ArtifactInfo("repo", "nl.pieni", "artifact", version, null);
+        artifactInfo.sha1 = sha1;
+        return artifactInfo;
+    }
+
+    private List<Dependency> createDependencies() {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("nl.pieni");
+        dependency.setArtifactId("dependency");
+        dependency.setVersion("[1.0,2.0)");
+        dependency.setScope("compile");
+        dependency.setType("jar");
+        List<Dependency> dependencies = new ArrayList<Dependency>();
+        dependencies.add(dependency);
+        return dependencies;
+    }
+
+    @Test
+    public void storeLoadTest() throws IOException {
+        ResolvedArtifactCache cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.put(createArtifactInfo("1.0", "abc"), createDependencies());
+        cache.store();
+
+        cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.load();
+        List<Dependency> dependencies = cache.get(createArtifactInfo("1.0", "abc"));
+        assertEquals(1, dependencies.size());
+        Dependency dependency = dependencies.get(0);
+        assertEquals("nl.pieni", dependency.getGroupId());
+        assertEquals("dependency", dependency.getArtifactId());
+        assertEquals("[1.0,2.0)", dependency.getVersion());
+        assertEquals("compile", dependency.getScope());
+        assertEquals("jar", dependency.getType());
+        assertNull(dependency.getClassifier());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void checksumChangedTest() {
+        ResolvedArtifactCache cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.put(createArtifactInfo("1.0", "abc"), createDependencies());
+        assertNull(cache.get(createArtifactInfo("1.0", "def")));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void snapshotTest() {
+        ResolvedArtifactCache cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.put(createArtifactInfo("1.0-SNAPSHOT", "abc"), createDependencies());
+        assertNull(cache.get(createArtifactInfo("1.0-SNAPSHOT", "abc")));
+    }
+
+    @Test
+    public void noChecksumTest() {
+        ResolvedArtifactCache cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.put(createArtifactInfo("1.0", null), createDependencies());
+        assertNull(cache.get(createArtifactInfo("1.0", null)));
+    }
+
+    @Test
+    public void filterChangedTest() throws IOException {
+        ResolvedArtifactCache cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.put(createArtifactInfo("1.0", "abc"), createDependencies());
+        cache.store();
+
+        cache = new ResolvedArtifactCache(directory, Arrays.asList("org.apache"), "full", log);
+        cache.load();
+        assertNull(cache.get(createArtifactInfo("1.0", "abc")));
+    }
+
+    @Test
+    public void resolutionModeChangedTest() throws IOException {
+        ResolvedArtifactCache cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.put(createArtifactInfo("1.0", "abc"), createDependencies());
+        cache.store();
+
+        cache = new ResolvedArtifactCache(directory, patterns, "fast", log);
+        cache.load();
+        assertNull(cache.get(createArtifactInfo("1.0", "abc")));
+    }
+
+    @Test
+    public void unusedEntriesDroppedTest() throws IOException {
+        ResolvedArtifactCache cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.put(createArtifactInfo("1.0", "abc"), createDependencies());
+        cache.put(createArtifactInfo("2.0", "def"), createDependencies());
+        cache.store();
+
+        cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.load();
+        assertNotNull(cache.get(createArtifactInfo("1.0", "abc")));
+        cache.store();
+
+        cache = new ResolvedArtifactCache(directory, patterns, "full", log);
+        cache.load();
+        assertNotNull(cache.get(createArtifactInfo("1.0", "abc")));
+        assertNull(cache.get(createArtifactInfo("2.0", "def")));
+        assertFalse(new File(directory, ResolvedArtifactCache.CACHE_FILE_NAME + ".tmp").exists());
+    }
+}
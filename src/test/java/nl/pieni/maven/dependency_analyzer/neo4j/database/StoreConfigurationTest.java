@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.neo4j.database;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Testing of the database configuration
+ */
+public class StoreConfigurationTest {
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void defaultTest() {
+        Map<String, String> config = new StoreConfiguration(mock(Log.class), "target").create(StoreConfiguration.DEFAULT, "weak");
+        assertEquals(1, config.size());
+        assertEquals("weak", config.get(StoreConfiguration.CACHE_TYPE));
+    }
+
+    @Test
+    public void explicitTest() {
+        Map<String, String> config = new StoreConfiguration(mock(Log.class), "target").create("node=25M, relationship=1G", "soft");
+        assertEquals("25M", config.get("neostore.nodestore.db" + StoreConfiguration.MAPPED_MEMORY));
+        assertEquals("1024M", config.get("neostore.relationshipstore.db" + StoreConfiguration.MAPPED_MEMORY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidStoreTest() {
+        StoreConfiguration.parse("nodes=25M");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCacheTypeTest() {
+        new StoreConfiguration(mock(Log.class), "target").create(StoreConfiguration.DEFAULT, "large");
+    }
+
+    @Test
+    public void autoSizeTest() {
+        Map<String, Long> storeSizes = new LinkedHashMap<String, Long>();
+        storeSizes.put("neostore.nodestore.db", 10 * MB);
+        storeSizes.put("neostore.relationshipstore.db", 100L);
+        Map<String, Long> sizes = StoreConfiguration.autoSize(storeSizes, 1024 * MB);
+        assertEquals(Long.valueOf(11 * MB), sizes.get("neostore.nodestore.db"));
+        assertEquals(Long.valueOf(MB), sizes.get("neostore.relationshipstore.db"));
+    }
+
+    @Test
+    public void autoSizeScaledTest() {
+        Map<String, Long> storeSizes = new LinkedHashMap<String, Long>();
+        storeSizes.put("neostore.nodestore.db", 100 * MB);
+        storeSizes.put("neostore.relationshipstore.db", 300 * MB);
+        Map<String, Long> sizes = StoreConfiguration.autoSize(storeSizes, 200 * MB);
+        long total = sizes.get("neostore.nodestore.db") + sizes.get("neostore.relationshipstore.db");
+        assertTrue(total <= 200 * MB);
+        assertTrue(sizes.get("neostore.relationshipstore.db") > 2 * sizes.get("neostore.nodestore.db"));
+    }
+
+    @Test
+    public void autoStoreFilesTest() throws IOException {
+        File directory = new File("target/store-configuration-test");
+        directory.mkdirs();
+        FileOutputStream out = new FileOutputStream(new File(directory, "neostore.nodestore.db"));
+        out.write(new byte[1024]);
+        out.close();
+
+        Map<String, String> config = new StoreConfiguration(mock(Log.class), directory.getPath()).create(StoreConfiguration.AUTO, null);
+        assertEquals("1M", config.get("neostore.nodestore.db" + StoreConfiguration.MAPPED_MEMORY));
+        //No store file, the Neo4j default
+        assertFalse(config.containsKey("neostore.relationshipstore.db" + StoreConfiguration.MAPPED_MEMORY));
+    }
+}
@@ -99,6 +99,8 @@ public class ArtifactNodeFactoryTest {
     @Test
     public void insertNewTest() {
         Dependency dependency = mock(Dependency.class);
+        when(dependency.getGroupId()).thenReturn("nl.pieni");
+        when(dependency.getArtifactId()).thenReturn("artifact");
         when(dependency.getVersion()).thenReturn("1.0");
         @SuppressWarnings("unchecked")
         DependencyDatabase<GraphDatabaseService, Node> database = mock(DependencyDatabase.class);
@@ -116,11 +118,14 @@ public class ArtifactNodeFactoryTest {
 
         ArtifactNodeFactory factory = new ArtifactNodeFactory(database, searcher, log);
         assertEquals(1, factory.insert(dependency));
+        assertEquals(1L, factory.getNodeId());
 
         verify(artifactNode).setProperty(NodeProperties.NODE_TYPE, NodeType.ArtifactNode.name());
         verify(searcher).indexOnProperty(artifactNode, NodeProperties.ARTIFACT_ID);
+        verify(searcher).indexOnKey(artifactNode, NodeProperties.ARTIFACT_KEY, "nl.pieni:artifact");
         verify(database).startTransaction();
         verify(database).stopTransaction();
+        verify(searcher).invalidate(dependency);
         verify(log).debug(startsWith("Created ArtifactNode: "));
     }
 }
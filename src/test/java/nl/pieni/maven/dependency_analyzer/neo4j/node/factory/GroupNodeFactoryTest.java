@@ -114,6 +114,7 @@ public class GroupNodeFactoryTest {
         verify(searcher, times(3)).indexOnProperty(groupNode, NodeProperties.GROUP_ID);
         verify(database, times(1)).startTransaction();
         verify(database, times(1)).stopTransaction();
+        verify(searcher).invalidate(dependency);
         verify(log, times(3)).debug(startsWith("Created GroupNode: "));
     }
 
@@ -99,6 +99,8 @@ public class VersionNodeFactoryTest {
     @Test
     public void insertNewTest() {
         Dependency dependency = mock(Dependency.class);
+        when(dependency.getGroupId()).thenReturn("nl.pieni");
+        when(dependency.getArtifactId()).thenReturn("artifact");
         when(dependency.getVersion()).thenReturn("1.0");
         @SuppressWarnings("unchecked")
         DependencyDatabase<GraphDatabaseService, Node> database = mock(DependencyDatabase.class);
@@ -115,10 +117,13 @@ public class VersionNodeFactoryTest {
 
         VersionNodeFactory factory = new VersionNodeFactory(database, searcher, log);
         assertEquals(1, factory.insert(dependency));
+        assertEquals(1L, factory.getNodeId());
 
         verify(versionNode).setProperty(NodeProperties.NODE_TYPE, NodeType.VersionNode.name());
+        verify(searcher).indexOnKey(versionNode, NodeProperties.VERSION_KEY, "nl.pieni:artifact:1.0");
         verify(database).startTransaction();
         verify(database).stopTransaction();
+        verify(searcher).invalidate(dependency);
         verify(log).debug(startsWith("Created versionNode: "));
     }
 }
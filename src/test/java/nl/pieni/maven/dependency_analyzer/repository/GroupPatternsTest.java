@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Testing of the group pattern normalization
+ */
+public class GroupPatternsTest {
+
+    @Test
+    public void collapseTest() {
+        assertEquals(Arrays.asList("com.acme", "org.other"),
+                GroupPatterns.toPrefixes(Arrays.asList("org.other*", "com.acme.billing", "com.acme", "com.acmex*", "com.acme*")));
+    }
+
+    @Test
+    public void disjointTest() {
+        assertEquals(Arrays.asList("com.acme.billing", "com.acme.shipping"),
+                GroupPatterns.toPrefixes(Arrays.asList("com.acme.shipping", "com.acme.billing*")));
+    }
+
+    @Test
+    public void allTest() {
+        assertEquals(Arrays.asList(""), GroupPatterns.toPrefixes(Arrays.asList("com.acme", "*")));
+    }
+
+    @Test
+    public void emptyTest() {
+        assertTrue(GroupPatterns.toPrefixes(null).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void innerStarTest() {
+        GroupPatterns.toPrefixes(Arrays.asList("com.acme", "com.*.billing"));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository;
+
+import org.junit.Test;
+import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.ArtifactInfoGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Testing of the version selection
+ */
+public class LatestVersionSelectorTest {
+
+    @Test
+    public void latestOnlyTest() {
+        List<ArtifactInfo> selected = new LatestVersionSelector(1, false).select(artifacts("1.0", "2.0-SNAPSHOT", "1.10", "1.9"));
+        assertEquals(1, selected.size());
+        assertEquals("2.0-SNAPSHOT", selected.get(0).version);
+    }
+
+    @Test
+    public void latestThreeTest() {
+        List<ArtifactInfo> selected = new LatestVersionSelector(3, false).select(artifacts("1.0", "1.10", "1.2", "1.9", "1.1"));
+        assertEquals(3, selected.size());
+        assertEquals("1.2", selected.get(0).version);
+        assertEquals("1.9", selected.get(1).version);
+        assertEquals("1.10", selected.get(2).version);
+    }
+
+    @Test
+    public void releasesOnlyTest() {
+        List<ArtifactInfo> selected = new LatestVersionSelector(2, true).select(artifacts("1.0", "2.0-SNAPSHOT", "1.1", "1.2-beta-1"));
+        assertEquals(2, selected.size());
+        assertEquals("1.0", selected.get(0).version);
+        assertEquals("1.1", selected.get(1).version);
+    }
+
+    @Test
+    public void allVersionsTest() {
+        List<ArtifactInfo> selected = new LatestVersionSelector(0, false).select(artifacts("1.1", "1.0", "1.0", "1.2"));
+        assertEquals(3, selected.size());
+        assertEquals("1.0", selected.get(0).version);
+        assertEquals("1.2", selected.get(2).version);
+    }
+
+    @Test
+    public void classifierFirstTest() {
+        List<ArtifactInfo> artifactInfos = new ArrayList<ArtifactInfo>();
+        artifactInfos.add(new ArtifactInfo("repo", "nl.pieni", "analyzer", "1.0", "sources"));
+        artifactInfos.add(new ArtifactInfo("repo", "nl.pieni", "analyzer", "1.1", "javadoc"));
+        artifactInfos.addAll(artifacts("1.1", "1.0"));
+        List<ArtifactInfo> selected = new LatestVersionSelector(1, false).select(artifactInfos);
+        assertEquals(1, selected.size());
+        assertEquals("1.1", selected.get(0).version);
+        assertNull(selected.get(0).classifier);
+
+        selected = new LatestVersionSelector(0, false).select(artifactInfos);
+        assertEquals(2, selected.size());
+        assertNull(selected.get(0).classifier);
+        assertNull(selected.get(1).classifier);
+    }
+
+    @Test
+    public void isReleaseTest() {
+        assertTrue(LatestVersionSelector.isRelease("1.2.3.4"));
+        assertTrue(LatestVersionSelector.isRelease("3.6.0.Final"));
+        assertTrue(LatestVersionSelector.isRelease("2.0-jdk5"));
+        assertFalse(LatestVersionSelector.isRelease("2.0-SNAPSHOT"));
+        assertFalse(LatestVersionSelector.isRelease("1.0-beta-1"));
+        assertFalse(LatestVersionSelector.isRelease("3.0-RC2"));
+        assertFalse(LatestVersionSelector.isRelease("2.0-M1"));
+        assertFalse(LatestVersionSelector.isRelease("1.0a3"));
+    }
+
+    @Test
+    public void selectionTest() {
+        LatestVersionSelector.Selection selection = new LatestVersionSelector(2, true).start();
+        for (ArtifactInfo artifactInfo : artifacts("1.0", "1.2.0.1", "1.3-rc1", "1.1")) {
+            selection.add(artifactInfo);
+        }
+        ArtifactInfoGroup group = selection.getGroup("nl.pieni : analyzer");
+        assertEquals(2, group.getArtifactInfos().size());
+        //Group is sorted latest version first
+        assertEquals("1.2.0.1", group.getArtifactInfos().iterator().next().version);
+        assertEquals(0, selection.getSelected().size());
+    }
+
+    private List<ArtifactInfo> artifacts(String... versions) {
+        List<ArtifactInfo> artifactInfos = new ArrayList<ArtifactInfo>();
+        for (String version : versions) {
+            artifactInfos.add(new ArtifactInfo("repo", "nl.pieni", "analyzer", version, null));
+        }
+        return artifactInfos;
+    }
+}
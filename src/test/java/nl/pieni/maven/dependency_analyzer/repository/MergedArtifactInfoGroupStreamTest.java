@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository;
+
+import org.junit.Test;
+import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.ArtifactInfoGroup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Testing of the merging of repository streams
+ */
+public class MergedArtifactInfoGroupStreamTest {
+
+    @Test
+    public void mergeTest() throws IOException {
+        ListStream hosted = new ListStream(
+                group(artifact("hosted", "nl.pieni", "a", "1.0")),
+                group(artifact("hosted", "nl.pieni", "c", "1.0")));
+        ListStream proxy = new ListStream(
+                group(artifact("proxy", "nl.pieni", "a", "1.0"), artifact("proxy", "nl.pieni", "a", "2.0")),
+                group(artifact("proxy", "nl.pieni", "b", "1.0")));
+
+        MergedArtifactInfoGroupStream stream = new MergedArtifactInfoGroupStream(Arrays.<ArtifactInfoGroupStream>asList(hosted, proxy));
+        assertEquals(5, stream.getTotalHits());
+
+        ArtifactInfoGroup group = stream.next();
+        assertEquals("nl.pieni : a", group.getGroupKey());
+        assertEquals(2, group.getArtifactInfos().size());
+        for (ArtifactInfo artifactInfo : group.getArtifactInfos()) {
+            if (artifactInfo.version.equals("1.0")) {
+                assertEquals("hosted", artifactInfo.repository);
+            } else {
+                assertEquals("proxy", artifactInfo.repository);
+            }
+        }
+        assertEquals("nl.pieni : b", stream.next().getGroupKey());
+        assertEquals("nl.pieni : c", stream.next().getGroupKey());
+        assertNull(stream.next());
+        assertEquals(1, stream.getDuplicateCount());
+
+        stream.close();
+        assertTrue(hosted.closed);
+        assertTrue(proxy.closed);
+    }
+
+    @Test
+    public void positionTest() {
+        assertEquals("nl.pieni|a|", MergedArtifactInfoGroupStream.position(group(artifact("repo", "nl.pieni", "a", "1.0"))));
+    }
+
+    private ArtifactInfo artifact(String repository, String groupId, String artifactId, String version) {
+        ArtifactInfo artifactInfo = new ArtifactInfo(repository, groupId, artifactId, version, null);
+        artifactInfo.packaging = "jar";
+        artifactInfo.fextension = "jar";
+        return artifactInfo;
+    }
+
+    private ArtifactInfoGroup group(ArtifactInfo... artifactInfos) {
+        ArtifactInfoGroup group = new ArtifactInfoGroup(artifactInfos[0].groupId + " : " + artifactInfos[0].artifactId);
+        for (ArtifactInfo artifactInfo : artifactInfos) {
+            group.addArtifactInfo(artifactInfo);
+        }
+        return group;
+    }
+
+    /**
+     * Stream of predefined groups
+     */
+    private static class ListStream implements ArtifactInfoGroupStream {
+        private final List<ArtifactInfoGroup> groups;
+        private final Iterator<ArtifactInfoGroup> iterator;
+        private boolean closed = false;
+
+        ListStream(ArtifactInfoGroup... groups) {
+            this.groups = Arrays.asList(groups);
+            this.iterator = this.groups.iterator();
+        }
+
+        @Override
+        public ArtifactInfoGroup next() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public int getTotalHits() {
+            int totalHits = 0;
+            for (ArtifactInfoGroup group : groups) {
+                totalHits += group.getArtifactInfos().size();
+            }
+            return totalHits;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
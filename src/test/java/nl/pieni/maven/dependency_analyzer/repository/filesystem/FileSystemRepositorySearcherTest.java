@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.filesystem;
+
+import nl.pieni.maven.dependency_analyzer.repository.ArtifactInfoGroupStream;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.ArtifactInfoGroup;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testing of the file system repository scan
+ */
+public class FileSystemRepositorySearcherTest {
+    private File directory;
+    private ArtifactRepository repository;
+
+    @Before
+    public void before() throws IOException {
+        directory = File.createTempFile("filesystem-repository", "dir");
+        directory.delete();
+        directory.mkdir();
+        repository = mock(ArtifactRepository.class);
+        when(repository.getId()).thenReturn("mirror");
+        when(repository.getBasedir()).thenReturn(directory.getAbsolutePath());
+
+        writePom("nl/pieni/analyzer/1.0", "jar");
+        writePom("nl/pieni/analyzer/1.1", null);
+        writePom("nl/pieni/analyzer/2.0-SNAPSHOT", "jar");
+        writePom("nl/pieni/webapp/1.0", "war");
+        writePom("nl/pieni/parent/1.0", "pom");
+        writePom("org/other/lib/1.0", "jar");
+        write(new File(directory, "nl/pieni/analyzer/1.0/analyzer-1.0.jar.sha1"), "0123456789abcdef0123456789abcdef01234567  analyzer-1.0.jar");
+        new File(directory, ".index").mkdir();
+    }
+
+    @After
+    public void after() {
+        delete(directory);
+    }
+
+    @Test
+    public void groupedTest() throws IOException {
+        FileSystemRepositorySearcher searcher = new FileSystemRepositorySearcher(mock(Log.class), false, 2);
+        Map<String, ArtifactInfoGroup> groups = searcher.searchIndexGrouped(Arrays.asList("nl.pieni"), repository, Arrays.asList("jar", "war"));
+        assertEquals(2, groups.size());
+        ArtifactInfoGroup analyzer = groups.get("nl.pieni : analyzer");
+        assertEquals(2, analyzer.getArtifactInfos().size());
+        for (ArtifactInfo artifactInfo : analyzer.getArtifactInfos()) {
+            assertEquals("mirror", artifactInfo.repository);
+            assertEquals("jar", artifactInfo.fextension);
+            if (artifactInfo.version.equals("1.0")) {
+                assertEquals("0123456789abcdef0123456789abcdef01234567", artifactInfo.sha1);
+            } else {
+                assertNull(artifactInfo.sha1);
+            }
+        }
+        assertEquals("war", groups.get("nl.pieni : webapp").getArtifactInfos().iterator().next().fextension);
+    }
+
+    @Test
+    public void streamTest() throws IOException {
+        FileSystemRepositorySearcher searcher = new FileSystemRepositorySearcher(mock(Log.class), true, 1);
+        ArtifactInfoGroupStream stream = searcher.searchIndexStream(Arrays.asList("*"), repository, Arrays.asList("jar"), null);
+        try {
+            assertEquals("nl.pieni : analyzer", stream.next().getGroupKey());
+            assertEquals("org.other : lib", stream.next().getGroupKey());
+            assertNull(stream.next());
+            assertEquals(4, stream.getTotalHits());
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void streamPositionOrderTest() throws IOException {
+        writePom("com/x/1.0", "jar");
+        writePom("com/y/z/1.0", "jar");
+        writePom("com-foo/b/1.0", "jar");
+        writePom("comx/c/1.0", "jar");
+        FileSystemRepositorySearcher searcher = new FileSystemRepositorySearcher(mock(Log.class), false, 2);
+        ArtifactInfoGroupStream stream = searcher.searchIndexStream(Arrays.asList("com"), repository, Arrays.asList("jar"), null);
+        try {
+            //The groups of the top level directories interleave in position order
+            assertEquals("com-foo : b", stream.next().getGroupKey());
+            assertEquals("com.y : z", stream.next().getGroupKey());
+            assertEquals("comx : c", stream.next().getGroupKey());
+            assertEquals("com : x", stream.next().getGroupKey());
+            assertNull(stream.next());
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void timestampedSnapshotTest() throws IOException {
+        String pom = "<project><artifactId>remote</artifactId><packaging>jar</packaging></project>";
+        write(new File(directory, "nl/pieni/remote/1.0-SNAPSHOT/remote-1.0-20110301.101010-1.pom"), pom);
+        write(new File(directory, "nl/pieni/remote/1.0-SNAPSHOT/remote-1.0-20110302.090000-2.pom"), pom);
+        write(new File(directory, "nl/pieni/remote/1.0-SNAPSHOT/remote-1.0-20110302.090000-2.jar.sha1"), "0123456789abcdef0123456789abcdef01234567");
+        FileSystemRepositorySearcher searcher = new FileSystemRepositorySearcher(mock(Log.class), true, 1);
+        Map<String, ArtifactInfoGroup> groups = searcher.searchIndexGrouped(Arrays.asList("nl.pieni"), repository, Arrays.asList("jar"));
+        ArtifactInfo artifactInfo = groups.get("nl.pieni : remote").getArtifactInfos().iterator().next();
+        assertEquals("1.0-SNAPSHOT", artifactInfo.version);
+        assertEquals("0123456789abcdef0123456789abcdef01234567", artifactInfo.sha1);
+    }
+
+    @Test
+    public void unreadablePomTest() throws IOException {
+        write(new File(directory, "nl/pieni/broken/1.0/broken-1.0.pom"), "<project><artifactId>broken");
+        write(new File(directory, "nl/pieni/excluding/1.0/excluding-1.0.pom"), "<project><artifactId>excluding</artifactId>"
+                + "<dependencies><dependency><artifactId>a</artifactId><exclusions><exclusion><artifactId>b</artifactId>"
+                + "</exclusion></exclusions></dependency></dependencies></project>");
+        Log log = mock(Log.class);
+        FileSystemRepositorySearcher searcher = new FileSystemRepositorySearcher(log, true, 1);
+        Map<String, ArtifactInfoGroup> groups = searcher.searchIndexGrouped(Arrays.asList("nl.pieni"), repository, Arrays.asList("jar"));
+        assertEquals(1, groups.get("nl.pieni : excluding").getArtifactInfos().size());
+        assertNull(groups.get("nl.pieni : broken"));
+        verify(log).warn(startsWith("Skipped 1 unreadable pom files"));
+    }
+
+    @Test
+    public void notADirectoryTest() {
+        when(repository.getBasedir()).thenReturn(new File(directory, "absent").getAbsolutePath());
+        FileSystemRepositorySearcher searcher = new FileSystemRepositorySearcher(mock(Log.class), true, 1);
+        try {
+            searcher.searchIndexGrouped(Arrays.asList("nl"), repository, Arrays.asList("jar"));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("mirror"));
+        }
+    }
+
+    private void writePom(String path, String packaging) throws IOException {
+        String[] elements = path.split("/");
+        String version = elements[elements.length - 1];
+        String artifactId = elements[elements.length - 2];
+        write(new File(directory, path + "/" + artifactId + "-" + version + ".pom"), "<project><modelVersion>4.0.0</modelVersion><artifactId>" + artifactId
+                + "</artifactId><version>" + version + "</version>"
+                + (packaging != null ? "<packaging>" + packaging + "</packaging>" : "") + "</project>");
+    }
+
+    private void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
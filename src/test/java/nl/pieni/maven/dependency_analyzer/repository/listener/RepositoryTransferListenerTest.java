@@ -24,6 +24,7 @@ import org.junit.Test;
 
 import java.io.File;
 
+import static junit.framework.Assert.assertEquals;
 import static org.mockito.Matchers.endsWith;
 import static org.mockito.Matchers.startsWith;
 import static org.mockito.Mockito.mock;
@@ -77,7 +78,7 @@ public class RepositoryTransferListenerTest {
         byte[] buffer = new byte[1024];
         //Send 1M data
         for (int i = 0; i < 1024; i++) {
-            listener.transferProgress(event, buffer, 0);
+            listener.transferProgress(event, buffer, buffer.length);
         }
         verify(log).info("Transferred 1Mb (" + 1048576 + " bytes)");
     }
@@ -88,12 +89,52 @@ public class RepositoryTransferListenerTest {
         byte[] buffer = new byte[1024];
         //Send 1M data
         for (int i = 0; i < (1024*2); i++) {
-            listener.transferProgress(event, buffer, 0);
+            listener.transferProgress(event, buffer, buffer.length);
         }
         verify(log).info("Transferred 1Mb (" + 1048576 + " bytes)");
         verify(log).info("Transferred 2Mb (" + 2097152 + " bytes)");
     }
 
+    @Test
+    public void transferProgressLengthTest() {
+        TransferEvent event = mock(TransferEvent.class);
+        //Only the length received counts, not the size of the buffer
+        listener.transferProgress(event, new byte[4096], 100);
+        listener.transferProgress(event, new byte[4096], 200);
+        assertEquals(300, listener.getTransferred());
+    }
+
+    @Test
+    public void transferRateTest() {
+        final long[] now = {10000};
+        listener = new RepositoryTransferListener(log, "repo") {
+            @Override
+            long currentTimeMillis() {
+                return now[0];
+            }
+        };
+        TransferEvent event = mock(TransferEvent.class);
+        when(event.getEventType()).thenReturn(TransferEvent.TRANSFER_STARTED);
+        when(event.getRequestType()).thenReturn(TransferEvent.REQUEST_GET);
+        Resource resource = mock(Resource.class);
+        when(event.getResource()).thenReturn(resource);
+        when(event.getLocalFile()).thenReturn(new File("localfile"));
+        when(resource.getContentLength()).thenReturn(4L * 1048576);
+        listener.transferStarted(event);
+
+        //1Mb in 2 seconds, 3Mb remaining
+        now[0] += 2000;
+        byte[] buffer = new byte[1024];
+        for (int i = 0; i < 1024; i++) {
+            listener.transferProgress(event, buffer, buffer.length);
+        }
+        assertEquals(524288, listener.getBytesPerSecond());
+        verify(log).info("[repo] Transferred 1Mb (1048576 bytes), 512 Kb/s, ETA 6 seconds");
+
+        listener.transferCompleted(event);
+        verify(log).info("[repo] Average transfer rate 512 Kb/s");
+    }
+
     @Test
     public void transferCompletedTest() {
         TransferEvent event = mock(TransferEvent.class);
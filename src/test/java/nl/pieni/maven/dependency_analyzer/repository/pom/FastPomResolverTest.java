@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.pom;
+
+import org.apache.maven.model.Dependency;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.fail;
+
+/**
+ * Testing of the pom resolution without the model builder
+ */
+public class FastPomResolverTest {
+    private File repository;
+    private FastPomResolver resolver;
+
+    @Before
+    public void before() throws IOException {
+        repository = File.createTempFile("fast-pom", "repo");
+        repository.delete();
+        repository.mkdir();
+        resolver = new FastPomResolver(repository);
+    }
+
+    @After
+    public void after() {
+        delete(repository);
+    }
+
+    @Test
+    public void plainDependenciesTest() throws Exception {
+        writePom("nl.pieni", "child", "1.0", "<groupId>nl.pieni</groupId><artifactId>child</artifactId><version>1.0</version>"
+                + "<dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.8</version>"
+                + "<scope>test</scope></dependency>"
+                + "<dependency><groupId>nl.pieni</groupId><artifactId>other</artifactId><version>2.0</version>"
+                + "<type>war</type></dependency></dependencies>"
+                + "<build><plugins><plugin><dependencies><dependency><artifactId>ignored</artifactId></dependency>"
+                + "</dependencies></plugin></plugins></build>");
+
+        List<Dependency> dependencies = resolver.resolveDependencies("nl.pieni", "child", "1.0");
+        assertEquals(2, dependencies.size());
+        assertEquals("junit", dependencies.get(0).getArtifactId());
+        assertEquals("test", dependencies.get(0).getScope());
+        assertEquals("jar", dependencies.get(0).getType());
+        assertEquals("compile", dependencies.get(1).getScope());
+        assertEquals("war", dependencies.get(1).getType());
+        assertNull(dependencies.get(1).getClassifier());
+    }
+
+    @Test
+    public void inheritanceTest() throws Exception {
+        writePom("nl.pieni", "parent", "1.0", "<groupId>nl.pieni</groupId><artifactId>parent</artifactId><version>1.0</version>"
+                + "<properties><other.version>2.0</other.version></properties>"
+                + "<dependencyManagement><dependencies>"
+                + "<dependency><groupId>nl.pieni</groupId><artifactId>other</artifactId><version>${other.version}</version>"
+                + "<scope>runtime</scope></dependency>"
+                + "<dependency><groupId>nl.pieni</groupId><artifactId>bom</artifactId><version>1.0</version>"
+                + "<type>pom</type><scope>import</scope></dependency>"
+                + "</dependencies></dependencyManagement>"
+                + "<dependencies><dependency><groupId>log4j</groupId><artifactId>log4j</artifactId>"
+                + "<version>1.2</version></dependency></dependencies>");
+        writePom("nl.pieni", "bom", "1.0", "<groupId>nl.pieni</groupId><artifactId>bom</artifactId><version>1.0</version>"
+                + "<dependencyManagement><dependencies>"
+                + "<dependency><groupId>nl.pieni</groupId><artifactId>managed</artifactId><version>${project.version}</version>"
+                + "</dependency></dependencies></dependencyManagement>");
+        writePom("nl.pieni", "child", "1.1", "<parent><groupId>nl.pieni</groupId><artifactId>parent</artifactId>"
+                + "<version>1.0</version></parent><artifactId>child</artifactId><version>1.1</version>"
+                + "<dependencies>"
+                + "<dependency><groupId>${project.groupId}</groupId><artifactId>other</artifactId></dependency>"
+                + "<dependency><groupId>nl.pieni</groupId><artifactId>managed</artifactId></dependency>"
+                + "<dependency><groupId>nl.pieni</groupId><artifactId>sibling</artifactId>"
+                + "<version>${project.parent.version}</version></dependency>"
+                + "</dependencies>");
+
+        List<Dependency> dependencies = resolver.resolveDependencies("nl.pieni", "child", "1.1");
+        assertEquals(4, dependencies.size());
+        assertEquals("log4j", dependencies.get(0).getArtifactId());
+        assertEquals("other", dependencies.get(1).getArtifactId());
+        assertEquals("nl.pieni", dependencies.get(1).getGroupId());
+        assertEquals("2.0", dependencies.get(1).getVersion());
+        assertEquals("runtime", dependencies.get(1).getScope());
+        assertEquals("1.0", dependencies.get(2).getVersion());
+        assertEquals("1.0", dependencies.get(3).getVersion());
+    }
+
+    @Test
+    public void sharedParentTest() throws Exception {
+        writePom("nl.pieni", "parent", "1.0", "<groupId>nl.pieni</groupId><artifactId>parent</artifactId><version>1.0</version>");
+        String child = "<parent><groupId>nl.pieni</groupId><artifactId>parent</artifactId><version>1.0</version></parent>"
+                + "<artifactId>child</artifactId>";
+        writePom("nl.pieni", "child", "1.0", child + "<version>1.0</version>");
+        writePom("nl.pieni", "child", "2.0", child + "<version>2.0</version>");
+
+        resolver.resolveDependencies("nl.pieni", "child", "1.0");
+        resolver.resolveDependencies("nl.pieni", "child", "2.0");
+        PomModelCache modelCache = resolver.getModelCache();
+        assertEquals(1, modelCache.size());
+        assertEquals(1, modelCache.getHits());
+        assertEquals(1, modelCache.getMisses());
+    }
+
+    @Test
+    public void missingPomTest() {
+        assertUnresolvable("nl.pieni", "absent", "1.0");
+    }
+
+    @Test
+    public void unresolvedExpressionTest() throws Exception {
+        writePom("nl.pieni", "child", "1.0", "<groupId>nl.pieni</groupId><artifactId>child</artifactId><version>1.0</version>"
+                + "<dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId>"
+                + "<version>${junit.version}</version></dependency></dependencies>");
+        assertUnresolvable("nl.pieni", "child", "1.0");
+    }
+
+    @Test
+    public void profileDependenciesTest() throws Exception {
+        writePom("nl.pieni", "child", "1.0", "<groupId>nl.pieni</groupId><artifactId>child</artifactId><version>1.0</version>"
+                + "<profiles><profile><id>extra</id><dependencies><dependency><groupId>junit</groupId>"
+                + "<artifactId>junit</artifactId><version>4.8</version></dependency></dependencies></profile></profiles>");
+        assertUnresolvable("nl.pieni", "child", "1.0");
+    }
+
+    @Test
+    public void missingVersionTest() throws Exception {
+        writePom("nl.pieni", "child", "1.0", "<groupId>nl.pieni</groupId><artifactId>child</artifactId><version>1.0</version>"
+                + "<dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId></dependency></dependencies>");
+        assertUnresolvable("nl.pieni", "child", "1.0");
+    }
+
+    private void assertUnresolvable(String groupId, String artifactId, String version) {
+        try {
+            resolver.resolveDependencies(groupId, artifactId, version);
+            fail("PomReaderException expected");
+        } catch (PomReaderException e) {
+            //Expected
+        }
+    }
+
+    private void writePom(String groupId, String artifactId, String version, String content) throws IOException {
+        File pomFile = resolver.pomFile(groupId, artifactId, version);
+        pomFile.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(pomFile);
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project xmlns=\"http://maven.apache.org/POM/4.0.0\">"
+                    + "<modelVersion>4.0.0</modelVersion>" + content + "</project>");
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.pom;
+
+import org.apache.maven.model.Dependency;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Testing of the streaming pom reader
+ */
+public class StreamingPomReaderTest {
+
+    @Test
+    public void exclusionsTest() throws Exception {
+        PomModel model = read("<groupId>nl.pieni</groupId><artifactId>child</artifactId><version>1.0</version>"
+                + "<packaging>war</packaging>"
+                + "<dependencyManagement><dependencies><dependency><groupId>log4j</groupId><artifactId>log4j</artifactId>"
+                + "<version>1.2</version><exclusions><exclusion><groupId>javax.jms</groupId><artifactId>jms</artifactId>"
+                + "</exclusion></exclusions></dependency></dependencies></dependencyManagement>"
+                + "<dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.8</version>"
+                + "<exclusions><exclusion><groupId>org.hamcrest</groupId><artifactId>hamcrest-core</artifactId>"
+                + "</exclusion></exclusions><scope>test</scope></dependency>"
+                + "<dependency><groupId>nl.pieni</groupId><artifactId>other</artifactId><version>2.0</version>"
+                + "</dependency></dependencies>");
+
+        assertEquals("child", model.getArtifactId());
+        assertEquals("war", model.getPackaging());
+        List<Dependency> dependencies = model.getDependencies();
+        assertEquals(2, dependencies.size());
+        assertEquals("junit", dependencies.get(0).getArtifactId());
+        assertEquals("junit", dependencies.get(0).getGroupId());
+        assertEquals("test", dependencies.get(0).getScope());
+        assertEquals("other", dependencies.get(1).getArtifactId());
+        assertEquals(1, model.getManagedDependencies().size());
+        assertEquals("log4j", model.getManagedDependencies().get(0).getGroupId());
+        assertEquals("1.2", model.getManagedDependencies().get(0).getVersion());
+    }
+
+    @Test
+    public void skippedSectionsTest() throws Exception {
+        PomModel model = read("<parent><groupId>nl.pieni</groupId><artifactId>parent</artifactId><version>1.0</version>"
+                + "<relativePath>../parent</relativePath></parent><artifactId>child</artifactId>"
+                + "<build><plugins><plugin><artifactId>maven-compiler-plugin</artifactId><dependencies><dependency>"
+                + "<groupId>asm</groupId><artifactId>asm</artifactId></dependency></dependencies></plugin></plugins></build>"
+                + "<reporting><plugins><plugin><artifactId>maven-javadoc-plugin</artifactId></plugin></plugins></reporting>"
+                + "<profiles><profile><id>extra</id><dependencies><dependency><groupId>junit</groupId>"
+                + "<artifactId>junit</artifactId></dependency></dependencies></profile></profiles>");
+
+        assertEquals("child", model.getArtifactId());
+        assertEquals("parent", model.getParentArtifactId());
+        assertEquals(0, model.getDependencies().size());
+        assertTrue(model.hasProfileDependencies());
+    }
+
+    private PomModel read(String content) throws PomReaderException {
+        String pom = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project xmlns=\"http://maven.apache.org/POM/4.0.0\">"
+                + "<modelVersion>4.0.0</modelVersion>" + content + "</project>";
+        return new StreamingPomReader().read(new ByteArrayInputStream(pom.getBytes()));
+    }
+}
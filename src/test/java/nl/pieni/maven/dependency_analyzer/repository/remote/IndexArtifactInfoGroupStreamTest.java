@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.remote;
+
+import nl.pieni.maven.dependency_analyzer.repository.LatestVersionSelector;
+import org.apache.lucene.analysis.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.ArtifactInfoGroup;
+import org.sonatype.nexus.index.context.IndexCreator;
+import org.sonatype.nexus.index.context.IndexingContext;
+import org.sonatype.nexus.index.creator.MinimalArtifactInfoIndexCreator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testing of the streamed grouped search
+ */
+public class IndexArtifactInfoGroupStreamTest {
+    private RAMDirectory directory;
+    private IndexReader reader;
+    private IndexingContext context;
+
+    @Before
+    public void before() throws IOException {
+        directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new KeywordAnalyzer(), true, IndexWriter.MaxFieldLength.UNLIMITED);
+        //Added out of order, the stream returns them grouped
+        addArtifact(writer, "nl.pieni", "b", "1.0");
+        addArtifact(writer, "nl.pieni", "a", "1.0");
+        addArtifact(writer, "org.other", "a", "1.0");
+        addArtifact(writer, "nl.pieni", "b", "2.0");
+        addArtifact(writer, "nl.pieni", "a", "2.0");
+        addArtifact(writer, "nl.pieni", "a", "3.0");
+        writer.close();
+
+        reader = IndexReader.open(directory, true);
+        List<IndexCreator> creators = new ArrayList<IndexCreator>();
+        creators.add(new MinimalArtifactInfoIndexCreator());
+        context = mock(IndexingContext.class);
+        when(context.getIndexReader()).thenReturn(reader);
+        when(context.getIndexCreators()).thenReturn(creators);
+    }
+
+    @After
+    public void after() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Test
+    public void groupedTest() throws IOException {
+        IndexArtifactInfoGroupStream stream = new IndexArtifactInfoGroupStream(context, new PrefixQuery(new Term(ArtifactInfo.UINFO, "nl.pieni|")));
+        try {
+            assertEquals(5, stream.getTotalHits());
+            ArtifactInfoGroup group = stream.next();
+            assertEquals("nl.pieni : a", group.getGroupKey());
+            assertEquals(3, group.getArtifactInfos().size());
+            group = stream.next();
+            assertEquals("nl.pieni : b", group.getGroupKey());
+            assertEquals(2, group.getArtifactInfos().size());
+            assertNull(stream.next());
+            assertNull(stream.next());
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void selectedVersionsTest() throws IOException {
+        IndexArtifactInfoGroupStream stream = new IndexArtifactInfoGroupStream(context, new PrefixQuery(new Term(ArtifactInfo.UINFO, "nl.pieni|")), new LatestVersionSelector(2, false));
+        try {
+            assertEquals(5, stream.getTotalHits());
+            ArtifactInfoGroup group = stream.next();
+            assertEquals("nl.pieni : a", group.getGroupKey());
+            assertEquals(2, group.getArtifactInfos().size());
+            assertEquals("3.0", group.getArtifactInfos().iterator().next().version);
+            group = stream.next();
+            assertEquals("nl.pieni : b", group.getGroupKey());
+            assertEquals(2, group.getArtifactInfos().size());
+            assertNull(stream.next());
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void noHitsTest() throws IOException {
+        IndexArtifactInfoGroupStream stream = new IndexArtifactInfoGroupStream(context, new PrefixQuery(new Term(ArtifactInfo.UINFO, "com.absent|")));
+        try {
+            assertEquals(0, stream.getTotalHits());
+            assertNull(stream.next());
+        } finally {
+            stream.close();
+        }
+    }
+
+    private void addArtifact(IndexWriter writer, String groupId, String artifactId, String version) throws IOException {
+        ArtifactInfo artifactInfo = new ArtifactInfo("repo", groupId, artifactId, version, null);
+        artifactInfo.packaging = "jar";
+        artifactInfo.fextension = "jar";
+        Document document = new Document();
+        document.add(new Field(ArtifactInfo.UINFO, artifactInfo.getUinfo(), Field.Store.YES, Field.Index.NOT_ANALYZED));
+        new MinimalArtifactInfoIndexCreator().updateDocument(artifactInfo, document);
+        writer.addDocument(document);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.remote;
+
+import org.apache.lucene.analysis.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.NexusIndexer;
+import org.sonatype.nexus.index.context.IndexingContext;
+import org.sonatype.nexus.index.updater.IndexUpdateRequest;
+import org.sonatype.nexus.index.updater.IndexUpdater;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testing of the concurrent index update and the hit estimate
+ */
+public class RemoteRepositorySearcherTest {
+    private NexusIndexer indexer;
+    private IndexUpdater indexUpdater;
+    private RemoteRepositorySearcher searcher;
+
+    @Before
+    public void before() {
+        indexer = mock(NexusIndexer.class);
+        indexUpdater = mock(IndexUpdater.class);
+        Map<String, IndexingContext> contexts = new HashMap<String, IndexingContext>();
+        contexts.put("central", context("central"));
+        contexts.put("snapshots", context("snapshots"));
+        when(indexer.getIndexingContexts()).thenReturn(contexts);
+        searcher = new RemoteRepositorySearcher(indexer, indexUpdater, mock(Log.class), new File("target"), true, 2, 0, 0);
+    }
+
+    @Test
+    public void updateOnceTest() throws Exception {
+        searcher.updateIndexes(new ArrayList<ArtifactRepository>());
+        verify(indexUpdater, times(2)).fetchAndUpdateIndex(any(IndexUpdateRequest.class));
+
+        searcher.updateIndexes(new ArrayList<ArtifactRepository>());
+        verify(indexUpdater, times(2)).fetchAndUpdateIndex(any(IndexUpdateRequest.class));
+    }
+
+    @Test
+    public void updateFailureTest() throws Exception {
+        doThrow(new IOException("unreachable")).when(indexUpdater).fetchAndUpdateIndex(any(IndexUpdateRequest.class));
+        try {
+            searcher.updateIndexes(new ArrayList<ArtifactRepository>());
+            fail("IOException expected");
+        } catch (IOException e) {
+            //Expected
+        }
+        verify(indexUpdater, times(2)).fetchAndUpdateIndex(any(IndexUpdateRequest.class));
+    }
+
+    @Test
+    public void separateIndexDirectoriesTest() throws Exception {
+        NexusIndexer emptyIndexer = mock(NexusIndexer.class);
+        when(emptyIndexer.getIndexingContexts()).thenReturn(new HashMap<String, IndexingContext>());
+        File outputDirectory = new File("target");
+        RemoteRepositorySearcher repositorySearcher = new RemoteRepositorySearcher(emptyIndexer, indexUpdater, mock(Log.class), outputDirectory, true, 2, 0, 0);
+
+        repositorySearcher.updateIndexes(Arrays.asList(repository("central"), repository("snapshots")));
+        verify(emptyIndexer).addIndexingContext(eq("central"), eq("central"), any(File.class), eq(new File(outputDirectory, "central")), anyString(), anyString(), anyList());
+        verify(emptyIndexer).addIndexingContext(eq("snapshots"), eq("snapshots"), any(File.class), eq(new File(outputDirectory, "snapshots")), anyString(), anyString(), anyList());
+    }
+
+    @Test
+    public void countArtifactsTest() throws IOException {
+        RAMDirectory directory = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(directory, new KeywordAnalyzer(), true, IndexWriter.MaxFieldLength.UNLIMITED);
+        addArtifact(writer, "com.acme", "a", "1.0");
+        addArtifact(writer, "com.acme.billing", "b", "1.0");
+        addArtifact(writer, "com.acme.billing", "b", "2.0");
+        addArtifact(writer, "com.other", "c", "1.0");
+        addArtifact(writer, "org.acme", "d", "1.0");
+        writer.close();
+        IndexReader reader = IndexReader.open(directory, true);
+        try {
+            assertEquals(3, RemoteRepositorySearcher.countArtifacts(reader, Arrays.asList("com.acme")));
+            assertEquals(4, RemoteRepositorySearcher.countArtifacts(reader, Arrays.asList("com.acme", "org")));
+            assertEquals(0, RemoteRepositorySearcher.countArtifacts(reader, Arrays.asList("net")));
+        } finally {
+            reader.close();
+            directory.close();
+        }
+    }
+
+    private void addArtifact(IndexWriter writer, String groupId, String artifactId, String version) throws IOException {
+        ArtifactInfo artifactInfo = new ArtifactInfo("repo", groupId, artifactId, version, null);
+        artifactInfo.fextension = "jar";
+        Document document = new Document();
+        document.add(new Field(ArtifactInfo.UINFO, artifactInfo.getUinfo(), Field.Store.YES, Field.Index.NOT_ANALYZED));
+        writer.addDocument(document);
+    }
+
+    private ArtifactRepository repository(String id) {
+        ArtifactRepository repository = mock(ArtifactRepository.class);
+        when(repository.getId()).thenReturn(id);
+        when(repository.getUrl()).thenReturn("http://localhost/" + id);
+        when(repository.getBasedir()).thenReturn("target/");
+        when(repository.getReleases()).thenReturn(new ArtifactRepositoryPolicy());
+        when(repository.getSnapshots()).thenReturn(new ArtifactRepositoryPolicy());
+        return repository;
+    }
+
+    private IndexingContext context(String id) {
+        IndexingContext context = mock(IndexingContext.class);
+        when(context.getId()).thenReturn(id);
+        when(context.getRepositoryUrl()).thenReturn("http://localhost/" + id);
+        return context;
+    }
+}
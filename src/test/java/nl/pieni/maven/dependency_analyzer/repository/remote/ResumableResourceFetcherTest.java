@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.repository.remote;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import nl.pieni.maven.dependency_analyzer.repository.listener.RepositoryTransferListener;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Testing of the resumable index download
+ */
+public class ResumableResourceFetcherTest {
+    private static final long LAST_MODIFIED = 1300000000000L;
+    private static final byte[] CONTENT = new byte[10000];
+
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) i;
+        }
+    }
+
+    private HttpServer server;
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final AtomicInteger stalledRequests = new AtomicInteger();
+    private String requestedRange;
+    private File directory;
+    private RepositoryTransferListener listener;
+    private ResumableResourceFetcher fetcher;
+
+    @Before
+    public void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requestedRange = exchange.getRequestHeaders().getFirst("Range");
+                String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+                String path = exchange.getRequestURI().getPath();
+                if (path.endsWith("stalled.gz") && stalledRequests.getAndIncrement() == 0) {
+                    //Send part of the file, then stop sending without closing the connection
+                    exchange.getResponseHeaders().add("Last-Modified", ResumableResourceFetcher.formatHttpDate(LAST_MODIFIED));
+                    exchange.sendResponseHeaders(200, CONTENT.length);
+                    exchange.getResponseBody().write(CONTENT, 0, 4000);
+                    exchange.getResponseBody().flush();
+                    try {
+                        released.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    exchange.close();
+                    return;
+                }
+                if (!path.endsWith("index.gz") && !path.endsWith("stalled.gz")) {
+                    exchange.sendResponseHeaders(404, -1);
+                    exchange.close();
+                    return;
+                }
+                int offset = 0;
+                if (requestedRange != null && ResumableResourceFetcher.formatHttpDate(LAST_MODIFIED).equals(ifRange)) {
+                    offset = Integer.parseInt(requestedRange.substring("bytes=".length(), requestedRange.length() - 1));
+                }
+                exchange.getResponseHeaders().add("Last-Modified", ResumableResourceFetcher.formatHttpDate(LAST_MODIFIED));
+                exchange.sendResponseHeaders(offset > 0 ? 206 : 200, CONTENT.length - offset);
+                OutputStream out = exchange.getResponseBody();
+                out.write(CONTENT, offset, CONTENT.length - offset);
+                out.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        directory = new File("target/resumable-fetcher-test");
+        delete(directory);
+        listener = new RepositoryTransferListener(mock(Log.class), "repo");
+        fetcher = new ResumableResourceFetcher(new File(directory, "partial"), listener, mock(Log.class), 0, 0);
+        fetcher.connect("repo", "http://localhost:" + server.getAddress().getPort() + "/.index");
+    }
+
+    @After
+    public void after() {
+        released.countDown();
+        server.stop(0);
+        delete(directory);
+    }
+
+    @Test
+    public void completeDownloadTest() throws IOException {
+        File target = new File(directory, "index.gz");
+        fetcher.retrieve("index.gz", target);
+        assertNull(requestedRange);
+        assertTrue(Arrays.equals(CONTENT, read(target)));
+        assertEquals(CONTENT.length, listener.getTransferred());
+        assertFalse(new File(directory, "partial/index.gz.part").exists());
+    }
+
+    @Test
+    public void resumeDownloadTest() throws IOException {
+        File partial = new File(directory, "partial/index.gz.part");
+        write(partial, 4000);
+        partial.setLastModified(LAST_MODIFIED);
+
+        File target = new File(directory, "index.gz");
+        fetcher.retrieve("index.gz", target);
+        assertEquals("bytes=4000-", requestedRange);
+        assertTrue(Arrays.equals(CONTENT, read(target)));
+        assertEquals(CONTENT.length - 4000, listener.getTransferred());
+    }
+
+    @Test
+    public void changedRemoteFileTest() throws IOException {
+        File partial = new File(directory, "partial/index.gz.part");
+        write(partial, 4000);
+        partial.setLastModified(LAST_MODIFIED - 60000);
+
+        File target = new File(directory, "index.gz");
+        fetcher.retrieve("index.gz", target);
+        assertTrue(Arrays.equals(CONTENT, read(target)));
+        assertEquals(CONTENT.length, listener.getTransferred());
+    }
+
+    @Test
+    public void stalledDownloadTest() throws IOException {
+        fetcher = new ResumableResourceFetcher(new File(directory, "partial"), listener, mock(Log.class), 1, 500);
+        fetcher.connect("repo", "http://localhost:" + server.getAddress().getPort() + "/.index");
+
+        File target = new File(directory, "stalled.gz");
+        fetcher.retrieve("stalled.gz", target);
+        assertEquals(2, stalledRequests.get());
+        assertEquals("bytes=4000-", requestedRange);
+        assertTrue(Arrays.equals(CONTENT, read(target)));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void missingFileTest() throws IOException {
+        fetcher.retrieve("index.1.gz", new File(directory, "index.1.gz"));
+    }
+
+    private void write(final File file, final int length) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(CONTENT, 0, length);
+        } finally {
+            out.close();
+        }
+    }
+
+    private byte[] read(final File file) throws IOException {
+        byte[] result = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < result.length) {
+                offset += in.read(result, offset, result.length - offset);
+            }
+        } finally {
+            in.close();
+        }
+        return result;
+    }
+
+    private void delete(final File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2011 Pieter van der Meer (pieter@pieni.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.pieni.maven.dependency_analyzer.util;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * Testing of the LRU cache
+ */
+public class LruCacheTest {
+
+    @Test
+    public void getPutTest() {
+        LruCache<String, Long> cache = new LruCache<String, Long>(10);
+        assertNull(cache.get("key"));
+        cache.put("key", 1L);
+        assertEquals(Long.valueOf(1L), cache.get("key"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void evictionTest() {
+        LruCache<String, Long> cache = new LruCache<String, Long>(2);
+        cache.put("a", 1L);
+        cache.put("b", 2L);
+        //Access a, b is least recently used
+        cache.get("a");
+        cache.put("c", 3L);
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals(Long.valueOf(1L), cache.get("a"));
+        assertEquals(Long.valueOf(3L), cache.get("c"));
+    }
+
+    @Test
+    public void disabledTest() {
+        LruCache<String, Long> cache = new LruCache<String, Long>(0);
+        cache.put("a", 1L);
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void removeTest() {
+        LruCache<String, Long> cache = new LruCache<String, Long>(10);
+        cache.put("a", 1L);
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        cache.put("b", 2L);
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void toStringTest() {
+        LruCache<String, Long> cache = new LruCache<String, Long>(10);
+        cache.put("a", 1L);
+        cache.get("a");
+        cache.get("b");
+        assertEquals("LruCache{ size = 1 hits = 1 misses = 1 hitRate = 50%}", cache.toString());
+    }
+}
@@ -18,7 +18,14 @@ package nl.pieni.maven.dependency_analyzer.util;
 
 import org.junit.Test;
 import org.sonatype.nexus.index.ArtifactInfo;
+import org.sonatype.nexus.index.ArtifactInfoGroup;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -47,4 +54,44 @@ public class VersionComparatorTest {
         ArtifactInfo artifactInfo2 = new ArtifactInfo("", "", "", "2.0", "");
         assertTrue(0 < comparator.compare(artifactInfo2, artifactInfo1));
     }
+
+    @Test
+    public void parseOnce() {
+        List<ArtifactInfo> artifactInfos = new ArrayList<ArtifactInfo>();
+        for (int i = 0; i < 2000; i++) {
+            artifactInfos.add(new ArtifactInfo("", "", "", "1." + (i % 1000), ""));
+        }
+        Collections.shuffle(artifactInfos);
+        VersionComparator versionComparator = new VersionComparator();
+        Collections.sort(artifactInfos, versionComparator);
+        assertEquals("1.0", artifactInfos.get(0).version);
+        assertEquals("1.999", artifactInfos.get(1999).version);
+        assertEquals(1000, versionComparator.getParseCount());
+    }
+
+    @Test
+    public void cacheDisabled() {
+        VersionComparator versionComparator = new VersionComparator(0);
+        ArtifactInfo artifactInfo1 = new ArtifactInfo("", "", "", "1.0", "");
+        ArtifactInfo artifactInfo2 = new ArtifactInfo("", "", "", "2.0", "");
+        assertTrue(0 > versionComparator.compare(artifactInfo1, artifactInfo2));
+        assertEquals(2, versionComparator.getParseCount());
+    }
+
+    @Test
+    public void groupOrder() {
+        ArtifactInfoGroup group = new ArtifactInfoGroup("nl.pieni : analyzer", comparator.groupOrder());
+        group.addArtifactInfo(new ArtifactInfo("", "nl.pieni", "analyzer", "1.10", "sources"));
+        group.addArtifactInfo(new ArtifactInfo("", "nl.pieni", "analyzer", "1.9", null));
+        group.addArtifactInfo(new ArtifactInfo("", "nl.pieni", "analyzer", "1.10", null));
+        group.addArtifactInfo(new ArtifactInfo("", "nl.pieni", "analyzer", "1.10", null));
+
+        assertEquals(3, group.getArtifactInfos().size());
+        Iterator<ArtifactInfo> iterator = group.getArtifactInfos().iterator();
+        ArtifactInfo artifactInfo = iterator.next();
+        assertEquals("1.10", artifactInfo.version);
+        assertEquals(null, artifactInfo.classifier);
+        assertEquals("sources", iterator.next().classifier);
+        assertEquals("1.9", iterator.next().version);
+    }
 }